@@ -0,0 +1,173 @@
+package com.devsuperior.dscatalog.components;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import com.devsuperior.dscatalog.services.exceptions.PasswordHashingBusyException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * PasswordEncoder da aplicação (login, segredo do client no /oauth/token e UserService.insert): o BCrypt roda num pool
+ * próprio de threads com fila limitada, fora das threads do Tomcat. Com o pool e a fila cheios, ou passado max-wait,
+ * responde 503 na hora (PasswordHashingBusyException): no pico de logins no máximo threads + queue-capacity requisições
+ * esperam pelo BCrypt, e o resto das threads do Tomcat continua livre para o catálogo.
+ * Métricas em /actuator/metrics/password.hashing.* (fila, threads ocupadas, rejeições, latência por operação).
+ * O custo (strength) é configurável: hashes gravados com outro custo são refeitos após o login (upgradeEncoding + encodeLater),
+ * num pool separado e menor (rehash-threads, prioridade mínima): durante uma migração de custo os logins não dividem
+ * threads nem fila com os rehashes, e um rehash que não cabe é descartado (password.hashing.rehash.dropped).
+ */
+@Component
+public class BoundedPasswordEncoder implements PasswordEncoder, MeterBinder {
+
+	private static final Pattern BCRYPT = Pattern.compile("\\A\\$2[aby]?\\$(\\d\\d)\\$[./0-9A-Za-z]{53}");
+
+	@Value("${catalog.password-hashing.strength:10}")
+	private int strength;															// custo do BCrypt (log2 das rodadas), 4 a 31
+
+	@Value("${catalog.password-hashing.threads:0}")
+	private int threads;																// 0 = nº de processadores
+
+	@Value("${catalog.password-hashing.queue-capacity:50}")
+	private int queueCapacity;
+
+	@Value("${catalog.password-hashing.max-wait-millis:2000}")
+	private long maxWaitMillis;
+
+	@Value("${catalog.password-hashing.rehash-threads:1}")
+	private int rehashThreads;
+
+	@Value("${catalog.password-hashing.rehash-queue-capacity:100}")
+	private int rehashQueueCapacity;
+
+	private PasswordEncoder delegate;
+
+	private ThreadPoolExecutor executor;
+	private ThreadPoolExecutor rehashExecutor;
+	private MeterRegistry registry = new SimpleMeterRegistry();						// até o bindTo (e nos testes)
+	private Counter rejected;
+	private Counter rehashDropped;
+
+	@PostConstruct
+	public void init() {
+		delegate = new BCryptPasswordEncoder(strength);
+		int size = (threads > 0) ? threads : Runtime.getRuntime().availableProcessors();
+		executor = pool("password-hashing-", size, queueCapacity, Thread.NORM_PRIORITY);
+		rehashExecutor = pool("password-rehash-", rehashThreads, rehashQueueCapacity, Thread.MIN_PRIORITY);
+		rejected = registry.counter("password.hashing.rejected");
+		rehashDropped = registry.counter("password.hashing.rehash.dropped");
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdownNow();
+		rehashExecutor.shutdownNow();
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		this.registry = registry;
+		rejected = registry.counter("password.hashing.rejected");
+		rehashDropped = registry.counter("password.hashing.rehash.dropped");
+		Gauge.builder("password.hashing.queue", executor, pool -> pool.getQueue().size())
+				.description("Hashes waiting for a password-hashing thread")
+				.register(registry);
+		Gauge.builder("password.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+				.register(registry);
+		Gauge.builder("password.hashing.rehash.queue", rehashExecutor, pool -> pool.getQueue().size())
+				.description("Rehashes waiting for a password-rehash thread")
+				.register(registry);
+	}
+
+	@Override
+	public String encode(CharSequence rawPassword) {
+		return submit("encode", () -> delegate.encode(rawPassword));
+	}
+
+	@Override
+	public boolean matches(CharSequence rawPassword, String encodedPassword) {
+		return submit("matches", () -> delegate.matches(rawPassword, encodedPassword));
+	}
+
+	// custo diferente do configurado, para mais ou para menos | o BCryptPasswordEncoder só considera custo menor
+	@Override
+	public boolean upgradeEncoding(String encodedPassword) {
+		if (encodedPassword == null) {
+			return false;
+		}
+		Matcher matcher = BCRYPT.matcher(encodedPassword);
+		return matcher.matches() && Integer.parseInt(matcher.group(1)) != strength;
+	}
+
+	// hash em segundo plano no pool de rehash, sem ninguém esperando | pool cheio: desiste (false) e o próximo login tenta de novo
+	public boolean encodeLater(CharSequence rawPassword, Consumer<String> onEncoded) {
+		try {
+			rehashExecutor.execute(() -> onEncoded.accept(registry.timer("password.hashing.latency", "operation", "rehash")
+					.record(() -> delegate.encode(rawPassword))));
+			return true;
+		} catch (RejectedExecutionException e) {
+			rehashDropped.increment();
+			return false;
+		}
+	}
+
+	private static ThreadPoolExecutor pool(String name, int size, int queueCapacity, int priority) {
+		AtomicInteger count = new AtomicInteger();
+		return new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity), task -> {
+			Thread thread = new Thread(task, name + count.incrementAndGet());
+			thread.setDaemon(true);
+			thread.setPriority(priority);
+			return thread;
+		});
+	}
+
+	private <T> T submit(String operation, Callable<T> hashing) {
+		Timer latency = registry.timer("password.hashing.latency", "operation", operation);
+		Future<T> future;
+		try {
+			future = executor.submit(() -> latency.recordCallable(hashing));
+		} catch (RejectedExecutionException e) {
+			rejected.increment();
+			throw new PasswordHashingBusyException("Too many logins right now, retry in a few seconds");
+		}
+		try {
+			return future.get(maxWaitMillis, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			future.cancel(true);
+			rejected.increment();
+			throw new PasswordHashingBusyException("Too many logins right now, retry in a few seconds");
+		} catch (InterruptedException e) {
+			future.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new PasswordHashingBusyException("Interrupted while waiting for password hashing");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();										// IllegalArgumentException do BCrypt etc.
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+}
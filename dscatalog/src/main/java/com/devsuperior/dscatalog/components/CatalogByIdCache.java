@@ -0,0 +1,85 @@
+package com.devsuperior.dscatalog.components;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.services.events.CategoryChangedEvent;
+import com.devsuperior.dscatalog.services.events.ProductChangedEvent;
+import com.devsuperior.dscatalog.services.events.ProductsImportedEvent;
+import com.devsuperior.dscatalog.services.events.ProductsRepricedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * ProductDTO por id (read-through) para o findById do ProductService (as categorias ficam no CategoryCatalog).
+ * Misses simultâneos do mesmo id esperam uma única carga (Caffeine.get com função); a carga que falha não fica em cache.
+ * As escritas invalidam após o commit; um invalidate durante uma carga do mesmo id espera a carga terminar e a remove.
+ * Hits/misses/tempo de carga em /actuator/metrics/cache.* (cache=productById).
+ */
+@Component
+public class CatalogByIdCache implements MeterBinder {
+
+	@Value("${catalog.by-id-cache.ttl-seconds:600}")
+	private long ttlSeconds;
+
+	@Value("${catalog.by-id-cache.max-size:10000}")
+	private long maxSize;
+
+	private Cache<Long, ProductDTO> products;
+
+	@PostConstruct
+	public void init() {
+		products = Caffeine.newBuilder()
+				.expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+				.maximumSize(maxSize)
+				.recordStats()
+				.build();
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		CaffeineCacheMetrics.monitor(registry, products, "productById");
+	}
+
+	// o DTO devolvido é compartilhado entre as requisições: quem chama não deve alterá-lo
+	public ProductDTO product(Long id, Function<Long, ProductDTO> loader) {
+		return products.get(id, loader);
+	}
+
+	// sem carga: o GET condicional usa o DTO se já estiver em cache e senão consulta só a versão
+	public ProductDTO peekProduct(Long id) {
+		return products.getIfPresent(id);
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onProductChanged(ProductChangedEvent event) {
+		products.invalidate(event.getProductId());
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onProductsRepriced(ProductsRepricedEvent event) {
+		products.invalidateAll(event.getProductIds());
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onProductsImported(ProductsImportedEvent event) {
+		products.invalidateAll(event.getProductIds());
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onCategoryChanged(CategoryChangedEvent event) {
+		products.asMap().values().removeIf(product -> product.getCategories().stream()		// o nome da categoria está no ProductDTO
+				.anyMatch(category -> event.getCategoryId().equals(category.getId())));
+	}
+}
@@ -0,0 +1,157 @@
+package com.devsuperior.dscatalog.components;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.devsuperior.dscatalog.dto.CategoryDTO;
+import com.devsuperior.dscatalog.repository.CategoryRepository;
+import com.devsuperior.dscatalog.services.events.CategoryChangedEvent;
+import com.devsuperior.dscatalog.services.exceptions.BadRequestException;
+
+/**
+ * Todas as categorias em memória (são poucas e quase não mudam): mapa por id + lista por nome num snapshot imutável,
+ * publicado por uma referência volatile. Leitores nunca bloqueiam nem vão ao banco; cada insert/update/delete
+ * de categoria recarrega um snapshot novo após o commit (copy-on-write) e incrementa a versão.
+ */
+@Component
+public class CategoryCatalog {
+
+	private static Logger logger = LoggerFactory.getLogger(CategoryCatalog.class);
+
+	private static final Set<String> SORTABLE = Set.of("id", "name");
+
+	@Autowired
+	private CategoryRepository repository;
+
+	private volatile Snapshot snapshot;													// null até a 1ª carga
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void init() {
+		Snapshot loaded = reload();
+		logger.info("Category catalog loaded: " + loaded.byName.size() + " categories");
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)						// só o que foi commitado
+	public void onCategoryChanged(CategoryChangedEvent event) {
+		reload();
+	}
+
+	// synchronized: duas recargas simultâneas não publicam fora de ordem | os leitores continuam no snapshot anterior
+	public synchronized Snapshot reload() {
+		List<CategoryDTO> byName = new ArrayList<>();
+		repository.findAll(Sort.by("name", "id")).forEach(category -> byName.add(new CategoryDTO(category)));
+		Snapshot current = snapshot;
+		snapshot = new Snapshot((current == null) ? 1 : current.version + 1, byName);
+		return snapshot;
+	}
+
+	public long version() {
+		return current().version;
+	}
+
+	// null se a categoria não existe
+	public CategoryDTO get(Long id) {
+		return current().byId.get(id);
+	}
+
+	public boolean exists(Long id) {
+		return current().byId.containsKey(id);
+	}
+
+	// ordenadas por nome
+	public List<CategoryDTO> findAll() {
+		return current().byName;
+	}
+
+	// só id e name são ordenados em memória | o CategoryService manda as outras propriedades para o banco
+	public boolean canSort(Sort sort) {
+		return sort.stream().allMatch(order -> SORTABLE.contains(order.getProperty()));
+	}
+
+	// mesma paginação do findAllPaged do repository, ordenando em memória por id e/ou name
+	public Page<CategoryDTO> findAll(Pageable pageable) {
+		Snapshot current = current();
+		List<CategoryDTO> all = current.byName;
+		if (pageable.getSort().isSorted()) {
+			all = new ArrayList<>(all);
+			all.sort(comparator(pageable.getSort(), current));
+		}
+		int from = (int) Math.min(pageable.getOffset(), all.size());
+		int to = Math.min(from + pageable.getPageSize(), all.size());
+		return new PageImpl<>(all.subList(from, to), pageable, all.size());
+	}
+
+	private Snapshot current() {
+		Snapshot current = snapshot;
+		return (current != null) ? current : reload();									// requisição antes do ApplicationReadyEvent
+	}
+
+	private static Comparator<CategoryDTO> comparator(Sort sort, Snapshot current) {
+		Comparator<CategoryDTO> result = null;
+		for (Sort.Order order : sort) {
+			Comparator<CategoryDTO> next;
+			switch (order.getProperty()) {
+			case "id":
+				next = Comparator.comparing(CategoryDTO::getId);
+				break;
+			case "name":
+				next = Comparator.comparing(category -> current.nameRank.get(category.getId()));		// collation do banco, não a do String
+				break;
+			default:
+				throw new BadRequestException("Invalid orderBy: " + order.getProperty() + " (expected id,name)");
+			}
+			next = order.isDescending() ? next.reversed() : next;
+			result = (result == null) ? next : result.thenComparing(next);
+		}
+		return result.thenComparing(CategoryDTO::getId);								// desempate estável entre páginas
+	}
+
+	public static final class Snapshot {
+
+		private final long version;
+		private final Map<Long, CategoryDTO> byId;
+		private final List<CategoryDTO> byName;
+		private final Map<Long, Integer> nameRank;										// posição do nome no ORDER BY name do banco
+
+		private Snapshot(long version, List<CategoryDTO> byName) {
+			Map<Long, CategoryDTO> byId = new LinkedHashMap<>();
+			Map<Long, Integer> nameRank = new HashMap<>();
+			int rank = 0;
+			for (int i = 0; i < byName.size(); i++) {
+				CategoryDTO category = byName.get(i);
+				if (i > 0 && !Objects.equals(category.getName(), byName.get(i - 1).getName())) {
+					rank++;																// nomes iguais empatam: o desempate é do Sort
+				}
+				byId.put(category.getId(), category);
+				nameRank.put(category.getId(), rank);
+			}
+			this.version = version;
+			this.byId = Collections.unmodifiableMap(byId);
+			this.byName = Collections.unmodifiableList(byName);
+			this.nameRank = nameRank;
+		}
+
+		public long getVersion() {
+			return version;
+		}
+	}
+}
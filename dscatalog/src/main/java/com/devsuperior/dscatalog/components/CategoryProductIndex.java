@@ -0,0 +1,143 @@
+package com.devsuperior.dscatalog.components;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.devsuperior.dscatalog.repository.ProductRepository;
+import com.devsuperior.dscatalog.services.events.ProductChangedEvent;
+import com.devsuperior.dscatalog.services.events.ProductSnapshot;
+import com.devsuperior.dscatalog.services.events.ProductsImportedEvent;
+
+/**
+ * Ids dos produtos de cada categoria num IntBitmap, montado a partir da tb_product_category.
+ * O filtro por categoria vira uma consulta em memória em vez do JOIN na tabela associativa.
+ * Leitores nunca veem um bitmap sendo alterado: cada escrita publica um mapa novo (copy-on-write).
+ */
+@Component
+public class CategoryProductIndex {
+
+	private static Logger logger = LoggerFactory.getLogger(CategoryProductIndex.class);
+
+	@Autowired
+	private ProductRepository repository;
+
+	private volatile Map<Long, IntBitmap> products = Collections.emptyMap();
+	private volatile boolean ready;
+
+	@EventListener(ApplicationReadyEvent.class)
+	public synchronized void rebuild() {
+		Map<Long, IntBitmap> newProducts = new HashMap<>();
+		for (Object[] row : repository.findAllCategoryProductIds()) {
+			newProducts.computeIfAbsent((Long) row[0], key -> new IntBitmap()).add(Math.toIntExact((Long) row[1]));
+		}
+		products = Collections.unmodifiableMap(newProducts);
+		ready = true;
+		logger.info("Category product index built: " + newProducts.size() + " categories");
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)						// só indexa o que foi commitado
+	public synchronized void onProductChanged(ProductChangedEvent event) {
+		int productId = Math.toIntExact(event.getProductId());
+		Map<Long, IntBitmap> newProducts = new HashMap<>(products);
+
+		for (Map.Entry<Long, IntBitmap> entry : newProducts.entrySet()) {			// só copia os bitmaps que mudam
+			boolean member = !event.isDeleted() && event.getCategoryIds().contains(entry.getKey());
+			if (entry.getValue().contains(productId) != member) {
+				IntBitmap copy = entry.getValue().copy();
+				if (member) {
+					copy.add(productId);
+				} else {
+					copy.remove(productId);
+				}
+				entry.setValue(copy);
+			}
+		}
+		if (!event.isDeleted()) {
+			for (Long categoryId : event.getCategoryIds()) {
+				newProducts.computeIfAbsent(categoryId, key -> IntBitmap.of(productId));	// 1º produto da categoria
+			}
+		}
+		products = Collections.unmodifiableMap(newProducts);
+	}
+
+	// bloco da carga em lote (produtos novos): uma cópia de cada bitmap tocado e um mapa novo para o bloco inteiro
+	@TransactionalEventListener(fallbackExecution = true)
+	public synchronized void onProductsImported(ProductsImportedEvent event) {
+		Map<Long, IntBitmap> added = new HashMap<>();
+		for (ProductSnapshot product : event.getProducts()) {
+			int productId = Math.toIntExact(product.getId());
+			for (Long categoryId : product.getCategoryIds()) {
+				added.computeIfAbsent(categoryId, key -> new IntBitmap()).add(productId);
+			}
+		}
+		if (added.isEmpty()) {
+			return;
+		}
+		Map<Long, IntBitmap> newProducts = new HashMap<>(products);
+		added.forEach((categoryId, ids) -> {
+			IntBitmap current = newProducts.get(categoryId);
+			newProducts.put(categoryId, (current == null) ? ids : IntBitmap.or(current, ids));
+		});
+		products = Collections.unmodifiableMap(newProducts);
+	}
+
+	// até o rebuild terminar o filtro continua indo para o banco
+	public boolean isReady() {
+		return ready;
+	}
+
+	// bitmap compartilhado, somente leitura | vazio se a categoria não tem produtos
+	public IntBitmap productsOf(Long categoryId) {
+		IntBitmap ids = products.get(categoryId);
+		return (ids == null) ? new IntBitmap() : ids;
+	}
+
+	// nº de produtos de ids em cada categoria (ids null conta todos) | categorias sem nenhum ficam de fora
+	public Map<Long, Long> countsWithin(IntBitmap ids) {
+		Map<Long, Long> counts = new HashMap<>();
+		for (Map.Entry<Long, IntBitmap> entry : products.entrySet()) {
+			long count = (ids == null) ? entry.getValue().cardinality() : IntBitmap.andCardinality(ids, entry.getValue());
+			if (count > 0) {
+				counts.put(entry.getKey(), count);
+			}
+		}
+		return counts;
+	}
+
+	// matchAll: produtos em todas as categorias (AND) | senão em pelo menos uma (OR)
+	public IntBitmap productsOf(List<Long> categoryIds, boolean matchAll) {
+		Map<Long, IntBitmap> snapshot = products;										// mesmo mapa durante toda a operação
+		List<IntBitmap> bitmaps = new ArrayList<>();
+		for (Long categoryId : categoryIds) {
+			IntBitmap ids = snapshot.get(categoryId);
+			if (ids == null && matchAll) {
+				return new IntBitmap();
+			}
+			if (ids != null) {
+				bitmaps.add(ids);
+			}
+		}
+		if (bitmaps.isEmpty()) {
+			return new IntBitmap();
+		}
+		if (matchAll) {
+			bitmaps.sort((a, b) -> Integer.compare(a.cardinality(), b.cardinality()));	// começa pelo menor
+		}
+		IntBitmap result = bitmaps.get(0);
+		for (int i = 1; i < bitmaps.size() && !(matchAll && result.isEmpty()); i++) {
+			result = matchAll ? IntBitmap.and(result, bitmaps.get(i)) : IntBitmap.or(result, bitmaps.get(i));
+		}
+		return result;
+	}
+}
@@ -0,0 +1,467 @@
+package com.devsuperior.dscatalog.components;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Conjunto de ints comprimido no estilo Roaring: os 16 bits altos escolhem um container e os 16 bits
+ * baixos ficam num array ordenado de char (até 4096 valores) ou num bitmap de 65536 bits.
+ * Não é thread-safe; quem compartilha entre threads deve publicar cópias (copy-on-write).
+ */
+public final class IntBitmap {
+
+	static final int ARRAY_MAX = 4096;
+
+	private char[] keys;
+	private Container[] containers;
+	private int size;
+
+	public IntBitmap() {
+		this(4);
+	}
+
+	private IntBitmap(int capacity) {
+		keys = new char[capacity];
+		containers = new Container[capacity];
+	}
+
+	public static IntBitmap of(int... values) {
+		IntBitmap bitmap = new IntBitmap();
+		for (int value : values) {
+			bitmap.add(value);
+		}
+		return bitmap;
+	}
+
+	public boolean add(int value) {
+		char high = (char) (value >>> 16);
+		int i = indexOf(high);
+		if (i < 0) {
+			i = -i - 1;
+			insertAt(i, high, new ArrayContainer());
+		}
+		int before = containers[i].cardinality();
+		containers[i] = containers[i].add((char) value);
+		return containers[i].cardinality() > before;
+	}
+
+	public boolean remove(int value) {
+		int i = indexOf((char) (value >>> 16));
+		if (i < 0) {
+			return false;
+		}
+		int before = containers[i].cardinality();
+		containers[i] = containers[i].remove((char) value);
+		if (containers[i].cardinality() == 0) {
+			removeAt(i);
+			return true;
+		}
+		return containers[i].cardinality() < before;
+	}
+
+	public boolean contains(int value) {
+		int i = indexOf((char) (value >>> 16));
+		return i >= 0 && containers[i].contains((char) value);
+	}
+
+	public int cardinality() {
+		int cardinality = 0;
+		for (int i = 0; i < size; i++) {
+			cardinality += containers[i].cardinality();
+		}
+		return cardinality;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public IntBitmap copy() {
+		IntBitmap copy = new IntBitmap(Math.max(size, 4));
+		for (int i = 0; i < size; i++) {
+			copy.keys[i] = keys[i];
+			copy.containers[i] = containers[i].copy();
+		}
+		copy.size = size;
+		return copy;
+	}
+
+	// valores em ordem crescente (sem sinal)
+	public void forEach(IntConsumer action) {
+		for (int i = 0; i < size; i++) {
+			containers[i].forEach(keys[i] << 16, action);
+		}
+	}
+
+	public int[] toArray() {
+		int[] values = new int[cardinality()];
+		int[] position = new int[1];
+		forEach(value -> values[position[0]++] = value);
+		return values;
+	}
+
+	public static IntBitmap and(IntBitmap a, IntBitmap b) {
+		IntBitmap result = new IntBitmap(Math.max(Math.min(a.size, b.size), 4));
+		int i = 0, j = 0;
+		while (i < a.size && j < b.size) {
+			if (a.keys[i] < b.keys[j]) {
+				i++;
+			} else if (a.keys[i] > b.keys[j]) {
+				j++;
+			} else {
+				Container container = a.containers[i].and(b.containers[j]);
+				if (container.cardinality() > 0) {
+					result.append(a.keys[i], container);
+				}
+				i++;
+				j++;
+			}
+		}
+		return result;
+	}
+
+	public static IntBitmap or(IntBitmap a, IntBitmap b) {
+		IntBitmap result = new IntBitmap(Math.max(a.size + b.size, 4));
+		int i = 0, j = 0;
+		while (i < a.size || j < b.size) {
+			if (j >= b.size || (i < a.size && a.keys[i] < b.keys[j])) {
+				result.append(a.keys[i], a.containers[i].copy());
+				i++;
+			} else if (i >= a.size || a.keys[i] > b.keys[j]) {
+				result.append(b.keys[j], b.containers[j].copy());
+				j++;
+			} else {
+				result.append(a.keys[i], a.containers[i].or(b.containers[j]));
+				i++;
+				j++;
+			}
+		}
+		return result;
+	}
+
+	// |a AND b| sem materializar a interseção
+	public static int andCardinality(IntBitmap a, IntBitmap b) {
+		int cardinality = 0;
+		int i = 0, j = 0;
+		while (i < a.size && j < b.size) {
+			if (a.keys[i] < b.keys[j]) {
+				i++;
+			} else if (a.keys[i] > b.keys[j]) {
+				j++;
+			} else {
+				cardinality += a.containers[i].andCardinality(b.containers[j]);
+				i++;
+				j++;
+			}
+		}
+		return cardinality;
+	}
+
+	private int indexOf(char high) {
+		return Arrays.binarySearch(keys, 0, size, high);
+	}
+
+	private void insertAt(int i, char high, Container container) {
+		ensureCapacity(size + 1);
+		System.arraycopy(keys, i, keys, i + 1, size - i);
+		System.arraycopy(containers, i, containers, i + 1, size - i);
+		keys[i] = high;
+		containers[i] = container;
+		size++;
+	}
+
+	private void removeAt(int i) {
+		System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+		System.arraycopy(containers, i + 1, containers, i, size - i - 1);
+		containers[--size] = null;
+	}
+
+	private void append(char high, Container container) {
+		ensureCapacity(size + 1);
+		keys[size] = high;
+		containers[size] = container;
+		size++;
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity > keys.length) {
+			int newCapacity = Math.max(capacity, keys.length * 2);
+			keys = Arrays.copyOf(keys, newCapacity);
+			containers = Arrays.copyOf(containers, newCapacity);
+		}
+	}
+
+	private abstract static class Container {
+
+		abstract Container add(char value);
+
+		abstract Container remove(char value);
+
+		abstract boolean contains(char value);
+
+		abstract int cardinality();
+
+		abstract Container and(Container other);
+
+		abstract Container or(Container other);
+
+		abstract int andCardinality(Container other);
+
+		abstract void forEach(int high, IntConsumer action);
+
+		abstract Container copy();
+	}
+
+	private static final class ArrayContainer extends Container {
+
+		private char[] values;
+		private int cardinality;
+
+		ArrayContainer() {
+			this(new char[4], 0);
+		}
+
+		ArrayContainer(char[] values, int cardinality) {
+			this.values = values;
+			this.cardinality = cardinality;
+		}
+
+		@Override
+		Container add(char value) {
+			int i = Arrays.binarySearch(values, 0, cardinality, value);
+			if (i >= 0) {
+				return this;
+			}
+			if (cardinality == ARRAY_MAX) {
+				return toBitmap().add(value);
+			}
+			i = -i - 1;
+			if (cardinality == values.length) {
+				values = Arrays.copyOf(values, Math.max(4, Math.min(values.length * 2, ARRAY_MAX)));
+			}
+			System.arraycopy(values, i, values, i + 1, cardinality - i);
+			values[i] = value;
+			cardinality++;
+			return this;
+		}
+
+		@Override
+		Container remove(char value) {
+			int i = Arrays.binarySearch(values, 0, cardinality, value);
+			if (i >= 0) {
+				System.arraycopy(values, i + 1, values, i, cardinality - i - 1);
+				cardinality--;
+			}
+			return this;
+		}
+
+		@Override
+		boolean contains(char value) {
+			return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+		}
+
+		@Override
+		int cardinality() {
+			return cardinality;
+		}
+
+		@Override
+		Container and(Container other) {
+			char[] result = new char[cardinality];
+			int n = 0;
+			if (other instanceof ArrayContainer) {
+				ArrayContainer array = (ArrayContainer) other;
+				int i = 0, j = 0;
+				while (i < cardinality && j < array.cardinality) {
+					if (values[i] < array.values[j]) {
+						i++;
+					} else if (values[i] > array.values[j]) {
+						j++;
+					} else {
+						result[n++] = values[i];
+						i++;
+						j++;
+					}
+				}
+			} else {
+				for (int i = 0; i < cardinality; i++) {
+					if (other.contains(values[i])) {
+						result[n++] = values[i];
+					}
+				}
+			}
+			return new ArrayContainer(result, n);
+		}
+
+		@Override
+		Container or(Container other) {
+			if (other instanceof BitmapContainer) {
+				return other.or(this);
+			}
+			ArrayContainer array = (ArrayContainer) other;
+			char[] result = new char[cardinality + array.cardinality];
+			int n = 0, i = 0, j = 0;
+			while (i < cardinality || j < array.cardinality) {
+				if (j >= array.cardinality || (i < cardinality && values[i] < array.values[j])) {
+					result[n++] = values[i++];
+				} else if (i >= cardinality || values[i] > array.values[j]) {
+					result[n++] = array.values[j++];
+				} else {
+					result[n++] = values[i];
+					i++;
+					j++;
+				}
+			}
+			ArrayContainer union = new ArrayContainer(result, n);
+			return (n > ARRAY_MAX) ? union.toBitmap() : union;
+		}
+
+		@Override
+		int andCardinality(Container other) {
+			if (other instanceof ArrayContainer) {
+				return and(other).cardinality();
+			}
+			int n = 0;
+			for (int i = 0; i < cardinality; i++) {
+				if (other.contains(values[i])) {
+					n++;
+				}
+			}
+			return n;
+		}
+
+		@Override
+		void forEach(int high, IntConsumer action) {
+			for (int i = 0; i < cardinality; i++) {
+				action.accept(high | values[i]);
+			}
+		}
+
+		@Override
+		Container copy() {
+			return new ArrayContainer(Arrays.copyOf(values, Math.max(cardinality, 4)), cardinality);
+		}
+
+		BitmapContainer toBitmap() {
+			BitmapContainer bitmap = new BitmapContainer();
+			for (int i = 0; i < cardinality; i++) {
+				bitmap.add(values[i]);
+			}
+			return bitmap;
+		}
+	}
+
+	private static final class BitmapContainer extends Container {
+
+		private final long[] words;
+		private int cardinality;
+
+		BitmapContainer() {
+			this(new long[1024], 0);
+		}
+
+		BitmapContainer(long[] words, int cardinality) {
+			this.words = words;
+			this.cardinality = cardinality;
+		}
+
+		@Override
+		Container add(char value) {
+			long bit = 1L << value;
+			if ((words[value >>> 6] & bit) == 0) {
+				words[value >>> 6] |= bit;
+				cardinality++;
+			}
+			return this;
+		}
+
+		@Override
+		Container remove(char value) {
+			long bit = 1L << value;
+			if ((words[value >>> 6] & bit) != 0) {
+				words[value >>> 6] &= ~bit;
+				cardinality--;
+			}
+			return (cardinality <= ARRAY_MAX) ? toArray() : this;
+		}
+
+		@Override
+		boolean contains(char value) {
+			return (words[value >>> 6] & (1L << value)) != 0;
+		}
+
+		@Override
+		int cardinality() {
+			return cardinality;
+		}
+
+		@Override
+		Container and(Container other) {
+			if (other instanceof ArrayContainer) {
+				return other.and(this);
+			}
+			BitmapContainer bitmap = (BitmapContainer) other;
+			long[] result = new long[1024];
+			int n = 0;
+			for (int i = 0; i < 1024; i++) {
+				result[i] = words[i] & bitmap.words[i];
+				n += Long.bitCount(result[i]);
+			}
+			BitmapContainer intersection = new BitmapContainer(result, n);
+			return (n <= ARRAY_MAX) ? intersection.toArray() : intersection;
+		}
+
+		@Override
+		Container or(Container other) {
+			BitmapContainer union = (BitmapContainer) copy();
+			if (other instanceof ArrayContainer) {
+				other.forEach(0, value -> union.add((char) value));
+				return union;
+			}
+			BitmapContainer bitmap = (BitmapContainer) other;
+			int n = 0;
+			for (int i = 0; i < 1024; i++) {
+				union.words[i] |= bitmap.words[i];
+				n += Long.bitCount(union.words[i]);
+			}
+			union.cardinality = n;
+			return union;
+		}
+
+		@Override
+		int andCardinality(Container other) {
+			if (other instanceof ArrayContainer) {
+				return other.andCardinality(this);
+			}
+			BitmapContainer bitmap = (BitmapContainer) other;
+			int n = 0;
+			for (int i = 0; i < 1024; i++) {
+				n += Long.bitCount(words[i] & bitmap.words[i]);
+			}
+			return n;
+		}
+
+		@Override
+		void forEach(int high, IntConsumer action) {
+			for (int i = 0; i < 1024; i++) {
+				long word = words[i];
+				while (word != 0) {
+					action.accept(high | (i << 6) | Long.numberOfTrailingZeros(word));
+					word &= word - 1;
+				}
+			}
+		}
+
+		@Override
+		Container copy() {
+			return new BitmapContainer(words.clone(), cardinality);
+		}
+
+		ArrayContainer toArray() {
+			char[] values = new char[Math.max(cardinality, 4)];
+			int[] n = new int[1];
+			forEach(0, value -> values[n[0]++] = (char) value);
+			return new ArrayContainer(values, cardinality);
+		}
+	}
+}
@@ -4,6 +4,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.oauth2.common.DefaultOAuth2AccessToken;
 import org.springframework.security.oauth2.common.OAuth2AccessToken;
 import org.springframework.security.oauth2.provider.OAuth2Authentication;
@@ -21,7 +22,7 @@ public class JwtTokenEnhancer implements TokenEnhancer {
 
 	@Override
 	public OAuth2AccessToken enhance(OAuth2AccessToken accessToken, OAuth2Authentication authentication) {
-		User user = userRepository.findByEmail(authentication.getName());
+		User user = principalOf(authentication);
 		
 		Map<String, Object> info = new HashMap<>();
 		info.put("userFirstName", user.getFirstName());
@@ -32,5 +33,14 @@ public class JwtTokenEnhancer implements TokenEnhancer {
 		
 		return accessToken;
 	}
+	
+	// password grant: o principal já é o User carregado pelo loadUserByUsername | só outros fluxos consultam o banco de novo
+	private User principalOf(OAuth2Authentication authentication) {
+		Authentication userAuthentication = authentication.getUserAuthentication();
+		if (userAuthentication != null && userAuthentication.getPrincipal() instanceof User) {
+			return (User) userAuthentication.getPrincipal();
+		}
+		return userRepository.findByEmail(authentication.getName());
+	}
 
 }
@@ -0,0 +1,87 @@
+package com.devsuperior.dscatalog.components;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.devsuperior.dscatalog.services.CategoryFilter;
+import com.devsuperior.dscatalog.services.ProductRange;
+import com.devsuperior.dscatalog.services.events.ProductChangedEvent;
+import com.devsuperior.dscatalog.services.events.ProductsImportedEvent;
+import com.devsuperior.dscatalog.services.events.ProductsRepricedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Total de elementos das buscas de produtos, por (filtro de categorias, faixas, nome normalizado).
+ * Evita o COUNT(DISTINCT) a cada página; qualquer escrita em produto limpa o cache.
+ * Como no ProductPageCache, o put recebe a version() lida antes do COUNT: um total contado antes de uma escrita
+ * que terminou no meio da consulta não fica em cache.
+ */
+@Component
+public class ProductCountCache {
+
+	@Value("${catalog.count-cache.ttl-seconds:30}")
+	private long ttlSeconds;
+
+	@Value("${catalog.count-cache.max-size:10000}")
+	private long maxSize;
+
+	private Cache<String, Long> counts;
+	private final AtomicLong version = new AtomicLong();						// muda a cada escrita
+
+	@PostConstruct
+	public void init() {
+		counts = Caffeine.newBuilder()
+				.expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+				.maximumSize(maxSize)
+				.build();
+	}
+
+	// null quando o total não está em cache
+	public Long get(CategoryFilter categories, String name, ProductRange range) {
+		return counts.getIfPresent(key(categories, name, range));
+	}
+
+	// ler antes do COUNT e devolver no put
+	public long version() {
+		return version.get();
+	}
+
+	// descarta o total se houve escrita depois do version()
+	public void put(CategoryFilter categories, String name, ProductRange range, long count, long readVersion) {
+		String key = key(categories, name, range);
+		counts.put(key, count);
+		if (version.get() != readVersion) {
+			counts.invalidate(key);
+		}
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onProductChanged(ProductChangedEvent event) {
+		version.incrementAndGet();
+		counts.invalidateAll();
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onProductsRepriced(ProductsRepricedEvent event) {
+		version.incrementAndGet();
+		counts.invalidateAll();																// os totais com faixa de preço mudam
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onProductsImported(ProductsImportedEvent event) {
+		version.incrementAndGet();
+		counts.invalidateAll();
+	}
+
+	private static String key(CategoryFilter categories, String name, ProductRange range) {
+		return categories.key() + ":" + range.key() + ":" + name.trim().toLowerCase(Locale.ROOT);
+	}
+}
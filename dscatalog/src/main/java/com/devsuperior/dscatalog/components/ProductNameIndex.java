@@ -0,0 +1,168 @@
+package com.devsuperior.dscatalog.components;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.devsuperior.dscatalog.repository.ProductRepository;
+import com.devsuperior.dscatalog.services.events.ProductChangedEvent;
+import com.devsuperior.dscatalog.services.events.ProductSnapshot;
+import com.devsuperior.dscatalog.services.events.ProductsImportedEvent;
+
+/**
+ * Índice invertido de trigramas sobre o nome dos produtos.
+ * Responde buscas por substring (o mesmo que o LIKE '%name%') intersectando as listas
+ * de ids (IntBitmap) de cada trigrama do termo, então o custo depende do nº de matches e não do catálogo.
+ */
+@Component
+public class ProductNameIndex {
+
+	private static Logger logger = LoggerFactory.getLogger(ProductNameIndex.class);
+
+	public static final int GRAM_SIZE = 3;
+
+	@Autowired
+	private ProductRepository repository;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private Map<String, IntBitmap> postings = new HashMap<>();
+	private Map<Long, String> names = new HashMap<>();
+	private volatile boolean ready;
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void rebuild() {
+		Map<String, IntBitmap> newPostings = new HashMap<>();
+		Map<Long, String> newNames = new HashMap<>();
+		for (Object[] row : repository.findAllIdsAndNames()) {
+			add((Long) row[0], (String) row[1], newPostings, newNames);
+		}
+
+		lock.writeLock().lock();
+		try {
+			postings = newPostings;
+			names = newNames;
+			ready = true;
+		} finally {
+			lock.writeLock().unlock();
+		}
+		logger.info("Product name index built: " + newNames.size() + " products, " + newPostings.size() + " grams");
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)						// só indexa o que foi commitado
+	public void onProductChanged(ProductChangedEvent event) {
+		lock.writeLock().lock();
+		try {
+			remove(event.getProductId());
+			if (!event.isDeleted()) {
+				add(event.getProductId(), event.getName(), postings, names);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	// bloco da carga em lote: um write lock para o bloco inteiro
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onProductsImported(ProductsImportedEvent event) {
+		lock.writeLock().lock();
+		try {
+			for (ProductSnapshot product : event.getProducts()) {
+				remove(product.getId());
+				add(product.getId(), product.getName(), postings, names);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	// termos curtos ou com curingas do LIKE continuam indo para o banco
+	public boolean canSearch(String name) {
+		String term = normalize(name);
+		return ready && term.length() >= GRAM_SIZE && term.indexOf('%') < 0 && term.indexOf('_') < 0
+				&& term.indexOf('\\') < 0;
+	}
+
+	// ids dos produtos cujo nome contém o termo, ignorando maiúsculas/minúsculas | bitmap novo, pode ser alterado
+	public IntBitmap search(String name) {
+		String term = normalize(name);
+		if (term.length() < GRAM_SIZE) {
+			throw new IllegalArgumentException("Search term shorter than " + GRAM_SIZE + " characters");
+		}
+		lock.readLock().lock();
+		try {
+			List<IntBitmap> lists = new ArrayList<>();
+			for (String gram : grams(term)) {
+				IntBitmap ids = postings.get(gram);
+				if (ids == null) {
+					return new IntBitmap();
+				}
+				lists.add(ids);
+			}
+			lists.sort((a, b) -> Integer.compare(a.cardinality(), b.cardinality()));	// começa pela lista mais curta
+
+			IntBitmap candidates = lists.get(0);
+			for (int i = 1; i < lists.size() && !candidates.isEmpty(); i++) {
+				candidates = IntBitmap.and(candidates, lists.get(i));
+			}
+			IntBitmap result = new IntBitmap();
+			candidates.forEach(id -> {
+				if (names.get((long) id).contains(term)) {								// trigramas em comum não garantem a substring
+					result.add(id);
+				}
+			});
+			return result;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private void remove(Long id) {
+		String name = names.remove(id);
+		if (name == null) {
+			return;
+		}
+		for (String gram : grams(name)) {
+			IntBitmap ids = postings.get(gram);
+			if (ids != null) {
+				ids.remove(Math.toIntExact(id));
+				if (ids.isEmpty()) {
+					postings.remove(gram);
+				}
+			}
+		}
+	}
+
+	private static void add(Long id, String name, Map<String, IntBitmap> postings, Map<Long, String> names) {
+		String normalized = normalize(name);
+		names.put(id, normalized);
+		for (String gram : grams(normalized)) {
+			postings.computeIfAbsent(gram, key -> new IntBitmap()).add(Math.toIntExact(id));
+		}
+	}
+
+	private static Set<String> grams(String text) {
+		Set<String> grams = new HashSet<>();
+		for (int i = 0; i + GRAM_SIZE <= text.length(); i++) {
+			grams.add(text.substring(i, i + GRAM_SIZE));
+		}
+		return grams;
+	}
+
+	private static String normalize(String name) {
+		return (name == null) ? "" : name.toLowerCase(Locale.ROOT);
+	}
+}
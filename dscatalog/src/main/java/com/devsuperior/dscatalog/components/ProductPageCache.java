@@ -0,0 +1,223 @@
+package com.devsuperior.dscatalog.components;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.devsuperior.dscatalog.dto.CategoryDTO;
+import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.services.CategoryFilter;
+import com.devsuperior.dscatalog.services.ProductRange;
+import com.devsuperior.dscatalog.services.events.CategoryChangedEvent;
+import com.devsuperior.dscatalog.services.events.ProductChangedEvent;
+import com.devsuperior.dscatalog.services.events.ProductSnapshot;
+import com.devsuperior.dscatalog.services.events.ProductsImportedEvent;
+import com.devsuperior.dscatalog.services.events.ProductsRepricedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Páginas prontas do ProductService.findAllPaged, por (categorias, nome normalizado, faixas, página, tamanho, ordem).
+ * Cada página guarda o filtro que a gerou: uma escrita só invalida as páginas que mostram o produto
+ * ou cujo filtro casa com o produto antes ou depois da escrita (a página pode ganhar/perder o produto e o total muda).
+ * Hits/misses/evictions em /actuator/metrics/cache.* (cache=productPages).
+ */
+@Component
+public class ProductPageCache implements MeterBinder {
+
+	@Value("${catalog.page-cache.ttl-seconds:60}")
+	private long ttlSeconds;
+
+	@Value("${catalog.page-cache.max-size:1000}")
+	private long maxSize;
+
+	private Cache<String, Entry> pages;
+	private final AtomicLong version = new AtomicLong();						// muda a cada escrita
+
+	@PostConstruct
+	public void init() {
+		pages = Caffeine.newBuilder()
+				.expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+				.maximumSize(maxSize)
+				.recordStats()
+				.build();
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		CaffeineCacheMetrics.monitor(registry, pages, "productPages");
+	}
+
+	// null quando a página não está em cache
+	public Page<ProductDTO> get(CategoryFilter categories, String name, ProductRange range, PageRequest pageRequest) {
+		Entry entry = pages.getIfPresent(key(categories, name, range, pageRequest));
+		return (entry == null) ? null : entry.page;
+	}
+
+	// ler antes de consultar o banco e devolver no put
+	public long version() {
+		return version.get();
+	}
+
+	// descarta a página se houve escrita depois do version() (ela pode ter sido lida antes do commit)
+	public void put(CategoryFilter categories, String name, ProductRange range, PageRequest pageRequest, Page<ProductDTO> page,
+			long readVersion) {
+		String key = key(categories, name, range, pageRequest);
+		pages.put(key, new Entry(page, categories, normalize(name), range, pageRequest.getSort().getOrderFor("price") != null));
+		if (version.get() != readVersion) {
+			pages.invalidate(key);
+		}
+	}
+
+	public CacheStats stats() {
+		return pages.stats();
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onProductChanged(ProductChangedEvent event) {
+		version.incrementAndGet();
+		if (event.isDeleted() && event.getBefore() == null) {
+			pages.invalidateAll();														// não sabemos onde o produto estava
+			return;
+		}
+		pages.asMap().values().removeIf(entry -> entry.shows(event.getProductId())
+				|| entry.matches(event.getBefore()) || entry.matches(event.getAfter()));
+	}
+
+	// reajuste em massa: o evento só tem id e preço, então cai toda página que mostra, filtra ou ordena por preço um deles
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onProductsRepriced(ProductsRepricedEvent event) {
+		version.incrementAndGet();
+		Set<Long> productIds = event.getProductIds();
+		pages.asMap().values().removeIf(entry -> entry.range.isPriceFiltered() || entry.sortedByPrice
+				|| entry.productIds.stream().anyMatch(productIds::contains));
+	}
+
+	// bloco da carga em lote: produtos novos, nenhuma página os mostra | uma passada pelas páginas para o bloco inteiro
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onProductsImported(ProductsImportedEvent event) {
+		version.incrementAndGet();
+		pages.asMap().values().removeIf(entry -> event.getProducts().stream().anyMatch(entry::matches));
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onCategoryChanged(CategoryChangedEvent event) {
+		version.incrementAndGet();
+		pages.asMap().values().removeIf(entry -> entry.categoryIds.contains(event.getCategoryId())
+				|| entry.categories.getIds().contains(event.getCategoryId()));
+	}
+
+	private static String key(CategoryFilter categories, String name, ProductRange range, PageRequest pageRequest) {
+		return categories.key() + "|" + range.key() + "|" + normalize(name) + "|" + pageRequest.getPageNumber() + "|"
+				+ pageRequest.getPageSize() + "|" + pageRequest.getSort();
+	}
+
+	private static String normalize(String name) {
+		return name.trim().toLowerCase(Locale.ROOT);
+	}
+
+	private static final class Entry {
+
+		private final Page<ProductDTO> page;
+		private final CategoryFilter categories;
+		private final String name;
+		private final Pattern like;															// null se o nome não tem % _ ou \
+		private final ProductRange range;
+		private final boolean sortedByPrice;
+		private final Set<Long> productIds = new HashSet<>();								// produtos mostrados na página
+		private final Set<Long> categoryIds = new HashSet<>();							// categorias mostradas na página
+
+		Entry(Page<ProductDTO> page, CategoryFilter categories, String name, ProductRange range, boolean sortedByPrice) {
+			this.page = page;
+			this.categories = categories;
+			this.name = name;
+			this.like = likePattern(name);
+			this.range = range;
+			this.sortedByPrice = sortedByPrice;
+			for (ProductDTO product : page.getContent()) {
+				productIds.add(product.getId());
+				for (CategoryDTO category : product.getCategories()) {
+					categoryIds.add(category.getId());
+				}
+			}
+		}
+
+		boolean shows(Long productId) {
+			return productIds.contains(productId);
+		}
+
+		// o produto entra no filtro da página? (mesma regra do JPQL da 1ª fase)
+		boolean matches(ProductSnapshot product) {
+			if (product == null) {
+				return false;
+			}
+			return matchesCategories(product.getCategoryIds()) && matchesRange(product) && matchesName(product.getName());
+		}
+
+		// LOWER(p.name) LIKE LOWER('%' || :name || '%'): sem curingas basta o contains
+		private boolean matchesName(String productName) {
+			if (productName == null) {
+				return false;
+			}
+			String lower = productName.toLowerCase(Locale.ROOT);
+			return (like == null) ? lower.contains(name) : like.matcher(lower).matches();
+		}
+
+		// % = qualquer sequência, _ = um caractere, \ escapa o seguinte (escape padrão do LIKE no H2 e no PostgreSQL)
+		private static Pattern likePattern(String name) {
+			if (name.indexOf('%') < 0 && name.indexOf('_') < 0 && name.indexOf('\\') < 0) {
+				return null;
+			}
+			StringBuilder regex = new StringBuilder(".*");
+			for (int i = 0; i < name.length(); i++) {
+				char c = name.charAt(i);
+				if (c == '\\' && i + 1 < name.length()) {
+					regex.append(Pattern.quote(String.valueOf(name.charAt(++i))));
+				} else if (c == '%') {
+					regex.append(".*");
+				} else if (c == '_') {
+					regex.append('.');
+				} else {
+					regex.append(Pattern.quote(String.valueOf(c)));
+				}
+			}
+			return Pattern.compile(regex.append(".*").toString(), Pattern.DOTALL);
+		}
+
+		private boolean matchesCategories(Set<Long> productCategories) {
+			if (productCategories.isEmpty()) {
+				return false;																// sem categoria não é listado
+			}
+			if (categories.isEmpty()) {
+				return true;
+			}
+			return categories.isMatchAll() ? productCategories.containsAll(categories.getIds())
+					: categories.getIds().stream().anyMatch(productCategories::contains);
+		}
+
+		private boolean matchesRange(ProductSnapshot product) {
+			if (range.isPriceFiltered() && (product.getPrice() == null
+					|| product.getPrice() < range.getPriceLower() || product.getPrice() > range.getPriceUpper())) {
+				return false;
+			}
+			return !range.isDateFiltered() || (product.getDate() != null
+					&& !product.getDate().isBefore(range.getDateLower()) && !product.getDate().isAfter(range.getDateUpper()));
+		}
+	}
+}
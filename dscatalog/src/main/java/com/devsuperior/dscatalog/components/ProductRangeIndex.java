@@ -0,0 +1,243 @@
+package com.devsuperior.dscatalog.components;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.devsuperior.dscatalog.repository.ProductRepository;
+import com.devsuperior.dscatalog.services.ProductRange;
+import com.devsuperior.dscatalog.services.events.ProductChangedEvent;
+import com.devsuperior.dscatalog.services.events.ProductSnapshot;
+import com.devsuperior.dscatalog.services.events.ProductsImportedEvent;
+import com.devsuperior.dscatalog.services.events.ProductsRepricedEvent;
+
+/**
+ * Preço e data dos produtos em arrays primitivos ordenados (valor + id), para os filtros por faixa.
+ * Duas buscas binárias acham o início e o fim da faixa e os ids entre elas viram um IntBitmap.
+ * Datas em nanossegundos (a coluna do banco guarda frações de segundo abaixo do milissegundo: 07.12345Z).
+ * Cada escrita publica arrays novos (copy-on-write): O(nº de produtos) por produto alterado, ou por bloco nas cargas em lote.
+ */
+@Component
+public class ProductRangeIndex {
+
+	private static Logger logger = LoggerFactory.getLogger(ProductRangeIndex.class);
+
+	@Autowired
+	private ProductRepository repository;
+
+	private volatile SortedColumn prices;														// null até o rebuild
+	private volatile SortedColumn dates;
+
+	@EventListener(ApplicationReadyEvent.class)
+	public synchronized void rebuild() {
+		List<long[]> priceRows = new ArrayList<>();
+		List<long[]> dateRows = new ArrayList<>();
+		for (Object[] row : repository.findAllPricesAndDates()) {
+			int id = Math.toIntExact((Long) row[0]);
+			if (row[1] != null) {
+				priceRows.add(new long[] { priceKey((Double) row[1]), id });
+			}
+			if (row[2] != null) {
+				dateRows.add(new long[] { dateKey((Instant) row[2]), id });
+			}
+		}
+		prices = SortedColumn.of(priceRows);
+		dates = SortedColumn.of(dateRows);
+		logger.info("Product range index built: " + priceRows.size() + " prices, " + dateRows.size() + " dates");
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)						// só indexa o que foi commitado
+	public synchronized void onProductChanged(ProductChangedEvent event) {
+		if (!isReady()) {
+			return;																// o rebuild ainda vai ler do banco
+		}
+		int id = Math.toIntExact(event.getProductId());
+		SortedColumn newPrices = prices.without(id);
+		SortedColumn newDates = dates.without(id);
+		if (!event.isDeleted() && event.getPrice() != null) {
+			newPrices = newPrices.with(id, priceKey(event.getPrice()));
+		}
+		if (!event.isDeleted() && event.getDate() != null) {
+			newDates = newDates.with(id, dateKey(event.getDate()));
+		}
+		prices = newPrices;
+		dates = newDates;
+	}
+
+	// reajuste em massa: uma reordenação da coluna de preços (O(n log n)) em vez de um without/with por produto
+	@TransactionalEventListener(fallbackExecution = true)
+	public synchronized void onProductsRepriced(ProductsRepricedEvent event) {
+		if (!isReady()) {
+			return;
+		}
+		Map<Integer, Long> newKeys = new HashMap<>();
+		event.getPrices().forEach((id, price) -> newKeys.put(Math.toIntExact(id), (price == null) ? null : priceKey(price)));
+		prices = prices.replacing(newKeys);
+	}
+
+	// bloco da carga em lote: uma reordenação de cada coluna para o bloco inteiro
+	@TransactionalEventListener(fallbackExecution = true)
+	public synchronized void onProductsImported(ProductsImportedEvent event) {
+		if (!isReady()) {
+			return;
+		}
+		Map<Integer, Long> newPrices = new HashMap<>();
+		Map<Integer, Long> newDates = new HashMap<>();
+		for (ProductSnapshot product : event.getProducts()) {
+			int id = Math.toIntExact(product.getId());
+			newPrices.put(id, (product.getPrice() == null) ? null : priceKey(product.getPrice()));
+			newDates.put(id, (product.getDate() == null) ? null : dateKey(product.getDate()));
+		}
+		prices = prices.replacing(newPrices);
+		dates = dates.replacing(newDates);
+	}
+
+	public boolean isReady() {
+		return prices != null;
+	}
+
+	// produtos dentro das faixas informadas (AND entre preço e data) | produto sem preço/data não entra na faixa
+	public IntBitmap productsIn(ProductRange range) {
+		return productsIn(range, Integer.MAX_VALUE);
+	}
+
+	// null se a faixa tem mais de limit produtos: conta pelas posições (hi - lo) antes de montar qualquer bitmap
+	public IntBitmap productsIn(ProductRange range, int limit) {
+		SortedColumn currentPrices = prices, currentDates = dates;
+		long priceMin = priceKey(range.getPriceLower()), priceMax = priceKey(range.getPriceUpper());
+		long dateMin = dateKey(range.getDateLower()), dateMax = dateKey(range.getDateUpper());
+		int byPriceCount = !range.isPriceFiltered() ? Integer.MAX_VALUE : currentPrices.count(priceMin, priceMax);
+		int byDateCount = !range.isDateFiltered() ? Integer.MAX_VALUE : currentDates.count(dateMin, dateMax);
+		if (Math.min(byPriceCount, byDateCount) > limit) {
+			return null;																	// o AND tem no máximo a menor das contagens
+		}
+		IntBitmap byPrice = !range.isPriceFiltered() ? null : currentPrices.between(priceMin, priceMax);
+		IntBitmap byDate = !range.isDateFiltered() ? null : currentDates.between(dateMin, dateMax);
+		if (byPrice == null) {
+			return (byDate == null) ? new IntBitmap() : byDate;
+		}
+		return (byDate == null) ? byPrice : IntBitmap.and(byPrice, byDate);
+	}
+
+	// double -> long com a mesma ordem (para preços negativos também), assim preço e data usam o mesmo long[]
+	private static long priceKey(double price) {
+		long bits = Double.doubleToLongBits(price + 0.0);									// + 0.0 troca o -0.0 por 0.0
+		return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+	}
+
+	// segundos * 10^9 + nanos: mesma ordem do banco até o nanossegundo | satura fora de 1677..2262 (limites abertos do ProductRange)
+	private static long dateKey(Instant instant) {
+		try {
+			return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000_000L), instant.getNano());
+		} catch (ArithmeticException e) {
+			return (instant.getEpochSecond() < 0) ? Long.MIN_VALUE : Long.MAX_VALUE;
+		}
+	}
+
+	private static final class SortedColumn {
+
+		private final long[] keys;															// ordenado
+		private final int[] ids;															// ids[i] tem o valor keys[i]
+
+		private SortedColumn(long[] keys, int[] ids) {
+			this.keys = keys;
+			this.ids = ids;
+		}
+
+		static SortedColumn of(List<long[]> rows) {
+			rows.sort(Comparator.comparingLong((long[] row) -> row[0]));
+			long[] keys = new long[rows.size()];
+			int[] ids = new int[rows.size()];
+			for (int i = 0; i < rows.size(); i++) {
+				keys[i] = rows.get(i)[0];
+				ids[i] = (int) rows.get(i)[1];
+			}
+			return new SortedColumn(keys, ids);
+		}
+
+		int count(long min, long max) {
+			return Math.max(0, upperBound(max) - lowerBound(min));
+		}
+
+		IntBitmap between(long min, long max) {
+			IntBitmap result = new IntBitmap();
+			for (int i = lowerBound(min); i < keys.length && keys[i] <= max; i++) {
+				result.add(ids[i]);
+			}
+			return result;
+		}
+
+		SortedColumn without(int id) {
+			for (int i = 0; i < ids.length; i++) {
+				if (ids[i] == id) {
+					long[] newKeys = new long[keys.length - 1];
+					int[] newIds = new int[ids.length - 1];
+					System.arraycopy(keys, 0, newKeys, 0, i);
+					System.arraycopy(keys, i + 1, newKeys, i, keys.length - i - 1);
+					System.arraycopy(ids, 0, newIds, 0, i);
+					System.arraycopy(ids, i + 1, newIds, i, ids.length - i - 1);
+					return new SortedColumn(newKeys, newIds);
+				}
+			}
+			return this;
+		}
+
+		// troca o valor de vários ids de uma vez | valor null = o id sai da coluna
+		SortedColumn replacing(Map<Integer, Long> newKeys) {
+			List<long[]> rows = new ArrayList<>(ids.length + newKeys.size());
+			for (int i = 0; i < ids.length; i++) {
+				if (!newKeys.containsKey(ids[i])) {
+					rows.add(new long[] { keys[i], ids[i] });
+				}
+			}
+			newKeys.forEach((id, key) -> {
+				if (key != null) {
+					rows.add(new long[] { key, id });
+				}
+			});
+			return of(rows);
+		}
+
+		SortedColumn with(int id, long key) {
+			int i = lowerBound(key);
+			long[] newKeys = Arrays.copyOf(keys, keys.length + 1);
+			int[] newIds = Arrays.copyOf(ids, ids.length + 1);
+			System.arraycopy(keys, i, newKeys, i + 1, keys.length - i);
+			System.arraycopy(ids, i, newIds, i + 1, ids.length - i);
+			newKeys[i] = key;
+			newIds[i] = id;
+			return new SortedColumn(newKeys, newIds);
+		}
+
+		// 1ª posição com keys[i] > key
+		private int upperBound(long key) {
+			return (key == Long.MAX_VALUE) ? keys.length : lowerBound(key + 1);
+		}
+
+		// 1ª posição com keys[i] >= key
+		private int lowerBound(long key) {
+			int low = 0, high = keys.length;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (keys[mid] < key) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+			return low;
+		}
+	}
+}
@@ -0,0 +1,72 @@
+package com.devsuperior.dscatalog.components;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import com.devsuperior.dscatalog.entities.User;
+import com.devsuperior.dscatalog.services.UserService;
+
+/**
+ * Login por e-mail/senha que migra o custo do BCrypt: se o hash gravado não tem o strength configurado,
+ * refaz o hash com a senha que acabou de conferir, em segundo plano (a resposta do login não espera).
+ * O UPDATE é condicional ao hash lido, então não desfaz uma troca de senha feita no meio do caminho.
+ * Com catalog.credential-cache.enabled, um login repetido com a mesma senha pula o BCrypt (VerifiedCredentialCache).
+ */
+@Component
+public class RehashingAuthenticationProvider extends DaoAuthenticationProvider {
+
+	private static Logger logger = LoggerFactory.getLogger(RehashingAuthenticationProvider.class);
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private BoundedPasswordEncoder passwordEncoder;
+
+	@Autowired
+	private VerifiedCredentialCache credentialCache;
+
+	@PostConstruct
+	public void init() {
+		setUserDetailsService(userService);
+		setPasswordEncoder(passwordEncoder);
+	}
+
+	@Override
+	protected void additionalAuthenticationChecks(UserDetails user, UsernamePasswordAuthenticationToken authentication) {
+		if (credentialCache.isVerified(user, authentication.getCredentials())) {
+			return;
+		}
+		super.additionalAuthenticationChecks(user, authentication);						// BCrypt | senha errada lança BadCredentialsException
+		credentialCache.put(user, authentication.getCredentials());
+	}
+
+	@Override
+	protected Authentication createSuccessAuthentication(Object principal, Authentication authentication, UserDetails user) {
+		if (user instanceof User && authentication.getCredentials() != null && passwordEncoder.upgradeEncoding(user.getPassword())) {
+			Long id = ((User) user).getId();
+			String oldHash = user.getPassword();
+			String rawPassword = authentication.getCredentials().toString();			// antes do eraseCredentials do ProviderManager
+			passwordEncoder.encodeLater(rawPassword, newHash -> rehash(id, oldHash, newHash));
+		}
+		return super.createSuccessAuthentication(principal, authentication, user);
+	}
+
+	private void rehash(Long id, String oldHash, String newHash) {
+		try {
+			if (userService.updatePasswordHash(id, oldHash, newHash)) {
+				logger.info("Password hash of user " + id + " migrated to the configured strength");
+			}
+		} catch (RuntimeException e) {
+			logger.warn("Password rehash of user " + id + " failed, retrying on next login", e);
+		}
+	}
+}
@@ -0,0 +1,99 @@
+package com.devsuperior.dscatalog.components;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+
+import javax.annotation.PostConstruct;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.devsuperior.dscatalog.services.events.UserChangedEvent;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Logins por senha verificados há pouco (opcional, desligado por padrão): um password grant repetido dentro do TTL
+ * pula o BCrypt. A chave é o HMAC-SHA256 de (e-mail, senha, hash gravado) com uma chave aleatória gerada na subida,
+ * nunca a senha: sem a chave, que só existe na memória deste nó, o cache não serve para testar senhas offline.
+ * Como o hash gravado entra na chave, trocar a senha (ou o re-hash de custo) já invalida a entrada;
+ * o UserService.update remove as entradas do e-mail antigo após o commit (UserChangedEvent). Hits/misses em /actuator/metrics/cache.* (cache=verifiedCredentials).
+ */
+@Component
+public class VerifiedCredentialCache implements MeterBinder {
+
+	private static final String HMAC = "HmacSHA256";
+
+	@Value("${catalog.credential-cache.enabled:false}")
+	private boolean enabled;
+
+	@Value("${catalog.credential-cache.ttl-seconds:60}")
+	private long ttlSeconds;
+
+	@Value("${catalog.credential-cache.max-size:10000}")
+	private long maxSize;
+
+	private SecretKeySpec key;
+	private Cache<String, String> credentials;											// HMAC -> e-mail (para invalidar por usuário)
+
+	@PostConstruct
+	public void init() {
+		byte[] secret = new byte[32];
+		new SecureRandom().nextBytes(secret);
+		key = new SecretKeySpec(secret, HMAC);
+		credentials = Caffeine.newBuilder()
+				.expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+				.maximumSize(maxSize)
+				.recordStats()
+				.build();
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		CaffeineCacheMetrics.monitor(registry, credentials, "verifiedCredentials");
+	}
+
+	public boolean isVerified(UserDetails user, Object presentedPassword) {
+		return enabled && presentedPassword != null && credentials.getIfPresent(hmac(user, presentedPassword)) != null;
+	}
+
+	// só depois do BCrypt confirmar a senha
+	public void put(UserDetails user, Object presentedPassword) {
+		if (enabled && presentedPassword != null) {
+			credentials.put(hmac(user, presentedPassword), user.getUsername());
+		}
+	}
+
+	public void invalidate(String email) {
+		credentials.asMap().values().removeIf(email::equals);
+	}
+
+	// após o commit: uma invalidação antes dele deixaria um login concorrente repor a entrada com os dados antigos
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onUserChanged(UserChangedEvent event) {
+		invalidate(event.getPreviousEmail());
+	}
+
+	private String hmac(UserDetails user, Object presentedPassword) {
+		try {
+			Mac mac = Mac.getInstance(HMAC);												// Mac não é thread-safe: um por chamada
+			mac.init(key);
+			String message = user.getUsername() + '\u0000' + presentedPassword + '\u0000' + user.getPassword();
+			return Base64.getEncoder().encodeToString(mac.doFinal(message.getBytes(StandardCharsets.UTF_8)));
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException(e);											// HmacSHA256 existe em toda JVM
+		}
+	}
+}
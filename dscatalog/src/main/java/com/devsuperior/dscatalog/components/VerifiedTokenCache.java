@@ -0,0 +1,128 @@
+package com.devsuperior.dscatalog.components;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.token.DefaultTokenServices;
+import org.springframework.security.oauth2.provider.token.ResourceServerTokenServices;
+import org.springframework.security.oauth2.provider.token.store.JwtTokenStore;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Token services do resource server com cache dos JWTs já verificados, por SHA-256 do token (o token em si não fica em memória).
+ * Sem o cache, cada requisição autenticada decodifica o JWT e confere a assinatura HMAC duas vezes (readAccessToken + readAuthentication).
+ * Cada entrada vence junto com o exp do próprio token; token inválido ou expirado não entra no cache.
+ * Hits/misses em /actuator/metrics/cache.* (cache=verifiedTokens).
+ */
+@Component
+public class VerifiedTokenCache implements ResourceServerTokenServices, MeterBinder {
+
+	@Value("${catalog.token-cache.max-size:10000}")
+	private long maxSize;
+
+	@Autowired
+	private JwtTokenStore tokenStore;
+
+	private DefaultTokenServices delegate;
+	private Cache<String, Verified> tokens;
+
+	@PostConstruct
+	public void init() {
+		delegate = new DefaultTokenServices();											// a mesma verificação do resources.tokenStore(...)
+		delegate.setTokenStore(tokenStore);
+		tokens = Caffeine.newBuilder()
+				.maximumSize(maxSize)
+				.expireAfter(new UntilTokenExpires())
+				.recordStats()
+				.build();
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		CaffeineCacheMetrics.monitor(registry, tokens, "verifiedTokens");
+	}
+
+	@Override
+	public OAuth2Authentication loadAuthentication(String accessToken) throws AuthenticationException, InvalidTokenException {
+		Verified verified = tokens.get(digest(accessToken), key -> verify(accessToken));	// a exceção da verificação não fica em cache
+		
+		// cópia por requisição: o OAuth2AuthenticationManager chama setDetails/setAuthenticated no objeto devolvido
+		OAuth2Authentication cached = verified.authentication;
+		OAuth2Authentication authentication = new OAuth2Authentication(cached.getOAuth2Request(), cached.getUserAuthentication());
+		authentication.setDetails(cached.getDetails());
+		return authentication;
+	}
+
+	@Override
+	public OAuth2AccessToken readAccessToken(String accessToken) {
+		return delegate.readAccessToken(accessToken);
+	}
+
+	private Verified verify(String accessToken) {
+		OAuth2Authentication authentication = delegate.loadAuthentication(accessToken);	// assinatura + exp
+		Date expiration = tokenStore.readAccessToken(accessToken).getExpiration();
+		return new Verified(authentication, (expiration == null) ? Long.MAX_VALUE : expiration.getTime());
+	}
+
+	private static String digest(String accessToken) {
+		try {
+			byte[] hash = MessageDigest.getInstance("SHA-256").digest(accessToken.getBytes(StandardCharsets.US_ASCII));
+			return Base64.getEncoder().encodeToString(hash);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);											// SHA-256 existe em toda JVM
+		}
+	}
+
+	private static class Verified {
+
+		private final OAuth2Authentication authentication;
+		private final long expiresAtMillis;
+
+		private Verified(OAuth2Authentication authentication, long expiresAtMillis) {
+			this.authentication = authentication;
+			this.expiresAtMillis = expiresAtMillis;
+		}
+	}
+
+	// tempo de vida = o que falta para o exp do token | leituras não prolongam a entrada
+	private static class UntilTokenExpires implements Expiry<String, Verified> {
+
+		@Override
+		public long expireAfterCreate(String key, Verified value, long currentTime) {
+			if (value.expiresAtMillis == Long.MAX_VALUE) {
+				return Long.MAX_VALUE;
+			}
+			return TimeUnit.MILLISECONDS.toNanos(Math.max(0, value.expiresAtMillis - System.currentTimeMillis()));
+		}
+
+		@Override
+		public long expireAfterUpdate(String key, Verified value, long currentTime, long currentDuration) {
+			return expireAfterCreate(key, value, currentTime);
+		}
+
+		@Override
+		public long expireAfterRead(String key, Verified value, long currentTime, long currentDuration) {
+			return currentDuration;
+		}
+	}
+}
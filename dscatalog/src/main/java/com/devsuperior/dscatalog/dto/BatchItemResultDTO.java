@@ -0,0 +1,69 @@
+package com.devsuperior.dscatalog.dto;
+
+import java.io.Serializable;
+import java.util.List;
+
+// resultado de um item da carga em lote, na posição em que veio no corpo
+public class BatchItemResultDTO implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	public static final String CREATED = "CREATED";
+	public static final String REJECTED = "REJECTED";
+
+	private int index;
+	private Long id;																// id gerado, só nos criados
+	private String status;
+	private List<String> errors = List.of();
+
+	public BatchItemResultDTO() {
+
+	}
+
+	public BatchItemResultDTO(int index, Long id, String status, List<String> errors) {
+		this.index = index;
+		this.id = id;
+		this.status = status;
+		this.errors = errors;
+	}
+
+	public static BatchItemResultDTO created(int index, Long id) {
+		return new BatchItemResultDTO(index, id, CREATED, List.of());
+	}
+
+	public static BatchItemResultDTO rejected(int index, List<String> errors) {
+		return new BatchItemResultDTO(index, null, REJECTED, errors);
+	}
+
+	public int getIndex() {
+		return index;
+	}
+
+	public void setIndex(int index) {
+		this.index = index;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public String getStatus() {
+		return status;
+	}
+
+	public void setStatus(String status) {
+		this.status = status;
+	}
+
+	public List<String> getErrors() {
+		return errors;
+	}
+
+	public void setErrors(List<String> errors) {
+		this.errors = errors;
+	}
+}
@@ -0,0 +1,100 @@
+package com.devsuperior.dscatalog.dto;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+// resumo da carga em lote (contagens e throughput): só os itens rejeitados vão no relatório (o corpo pode ter milhões de itens)
+public class BatchResultDTO implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private long received;
+	private long created;
+	private long rejected;
+	private long elapsedMillis;
+	private double itemsPerSecond;													// criados por segundo
+	private String error;															// corpo malformado: a leitura parou aqui, o que veio antes foi processado
+	private boolean rejectsTruncated;												// mais rejeitados do que catalog.batch-import.max-rejects
+	private List<BatchItemResultDTO> rejects = new ArrayList<>();					// index = posição do item no corpo
+
+	public BatchResultDTO() {
+
+	}
+
+	public BatchResultDTO(long received, long created, List<BatchItemResultDTO> rejects, boolean rejectsTruncated, 
+			long elapsedMillis, String error) {
+		this.received = received;
+		this.created = created;
+		this.rejected = received - created;
+		this.rejects = rejects;
+		this.rejectsTruncated = rejectsTruncated;
+		this.elapsedMillis = elapsedMillis;
+		this.itemsPerSecond = created * 1000.0 / Math.max(elapsedMillis, 1);
+		this.error = error;
+	}
+
+	public long getReceived() {
+		return received;
+	}
+
+	public void setReceived(long received) {
+		this.received = received;
+	}
+
+	public long getCreated() {
+		return created;
+	}
+
+	public void setCreated(long created) {
+		this.created = created;
+	}
+
+	public long getRejected() {
+		return rejected;
+	}
+
+	public void setRejected(long rejected) {
+		this.rejected = rejected;
+	}
+
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+
+	public void setElapsedMillis(long elapsedMillis) {
+		this.elapsedMillis = elapsedMillis;
+	}
+
+	public double getItemsPerSecond() {
+		return itemsPerSecond;
+	}
+
+	public void setItemsPerSecond(double itemsPerSecond) {
+		this.itemsPerSecond = itemsPerSecond;
+	}
+
+	public String getError() {
+		return error;
+	}
+
+	public void setError(String error) {
+		this.error = error;
+	}
+
+	public boolean isRejectsTruncated() {
+		return rejectsTruncated;
+	}
+
+	public void setRejectsTruncated(boolean rejectsTruncated) {
+		this.rejectsTruncated = rejectsTruncated;
+	}
+
+	public List<BatchItemResultDTO> getRejects() {
+		return rejects;
+	}
+
+	public void setRejects(List<BatchItemResultDTO> rejects) {
+		this.rejects = rejects;
+	}
+}
@@ -1,8 +1,10 @@
 package com.devsuperior.dscatalog.dto;
 
 import java.io.Serializable;
+import java.time.Instant;
 
 import com.devsuperior.dscatalog.entities.Category;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 public class CategoryDTO implements Serializable {
 
@@ -11,6 +13,9 @@ public class CategoryDTO implements Serializable {
 	private Long id;
 	private String name;
 	
+	@JsonIgnore
+	private Instant lastModified;													// updatedAt, ou createdAt se nunca foi alterada
+	
 	public CategoryDTO() {
 		
 	}
@@ -20,9 +25,15 @@ public class CategoryDTO implements Serializable {
 		this.name = name;
 	}
 	
+	public CategoryDTO(Long id, String name, Instant lastModified) {
+		this(id, name);
+		this.lastModified = lastModified;
+	}
+	
 	public CategoryDTO (Category entity) {
 		this.id = entity.getId();
 		this.name = entity.getName();
+		this.lastModified = (entity.getUpdatedAt() != null) ? entity.getUpdatedAt() : entity.getCreatedAt();
 	}
 
 	public Long getId() {
@@ -40,4 +51,8 @@ public class CategoryDTO implements Serializable {
 	public void setName(String name) {
 		this.name = name;
 	}
+
+	public Instant getLastModified() {
+		return lastModified;
+	}
 }
@@ -0,0 +1,32 @@
+package com.devsuperior.dscatalog.dto;
+
+import com.devsuperior.dscatalog.entities.Category;
+
+public class CategoryFacetDTO extends CategoryDTO {
+
+	private static final long serialVersionUID = 1L;
+
+	private Long count;																// produtos da busca nessa categoria
+
+	public CategoryFacetDTO() {
+
+	}
+
+	public CategoryFacetDTO(Category entity, Long count) {
+		super(entity);
+		this.count = count;
+	}
+
+	public CategoryFacetDTO(CategoryDTO category, Long count) {
+		super(category.getId(), category.getName(), category.getLastModified());
+		this.count = count;
+	}
+
+	public Long getCount() {
+		return count;
+	}
+
+	public void setCount(Long count) {
+		this.count = count;
+	}
+}
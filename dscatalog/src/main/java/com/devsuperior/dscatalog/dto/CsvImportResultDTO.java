@@ -0,0 +1,100 @@
+package com.devsuperior.dscatalog.dto;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+// resumo da importação CSV: só as linhas rejeitadas vão no relatório (o arquivo pode ter milhões de linhas)
+public class CsvImportResultDTO implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private long rows;
+	private long created;
+	private long rejected;
+	private long elapsedMillis;
+	private double rowsPerSecond;													// criados por segundo
+	private String error;															// CSV malformado: a leitura parou aqui, as linhas anteriores foram processadas
+	private boolean rejectsTruncated;												// mais rejeitadas do que catalog.csv-import.max-rejects
+	private List<BatchItemResultDTO> rejects = new ArrayList<>();					// index = nº da linha de dados (sem o cabeçalho)
+
+	public CsvImportResultDTO() {
+
+	}
+
+	public CsvImportResultDTO(long rows, long created, List<BatchItemResultDTO> rejects, boolean rejectsTruncated, 
+			long elapsedMillis, String error) {
+		this.rows = rows;
+		this.created = created;
+		this.rejected = rows - created;
+		this.rejects = rejects;
+		this.rejectsTruncated = rejectsTruncated;
+		this.elapsedMillis = elapsedMillis;
+		this.rowsPerSecond = created * 1000.0 / Math.max(elapsedMillis, 1);
+		this.error = error;
+	}
+
+	public long getRows() {
+		return rows;
+	}
+
+	public void setRows(long rows) {
+		this.rows = rows;
+	}
+
+	public long getCreated() {
+		return created;
+	}
+
+	public void setCreated(long created) {
+		this.created = created;
+	}
+
+	public long getRejected() {
+		return rejected;
+	}
+
+	public void setRejected(long rejected) {
+		this.rejected = rejected;
+	}
+
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+
+	public void setElapsedMillis(long elapsedMillis) {
+		this.elapsedMillis = elapsedMillis;
+	}
+
+	public double getRowsPerSecond() {
+		return rowsPerSecond;
+	}
+
+	public void setRowsPerSecond(double rowsPerSecond) {
+		this.rowsPerSecond = rowsPerSecond;
+	}
+
+	public String getError() {
+		return error;
+	}
+
+	public void setError(String error) {
+		this.error = error;
+	}
+
+	public boolean isRejectsTruncated() {
+		return rejectsTruncated;
+	}
+
+	public void setRejectsTruncated(boolean rejectsTruncated) {
+		this.rejectsTruncated = rejectsTruncated;
+	}
+
+	public List<BatchItemResultDTO> getRejects() {
+		return rejects;
+	}
+
+	public void setRejects(List<BatchItemResultDTO> rejects) {
+		this.rejects = rejects;
+	}
+}
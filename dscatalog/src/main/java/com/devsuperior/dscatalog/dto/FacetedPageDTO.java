@@ -0,0 +1,23 @@
+package com.devsuperior.dscatalog.dto;
+
+import java.util.List;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+
+// mesmo JSON do Page, com as contagens por categoria em "facets"
+public class FacetedPageDTO<T> extends PageImpl<T> {
+
+	private static final long serialVersionUID = 1L;
+
+	private final List<CategoryFacetDTO> facets;
+
+	public FacetedPageDTO(Page<T> page, List<CategoryFacetDTO> facets) {
+		super(page.getContent(), page.getPageable(), page.getTotalElements());
+		this.facets = facets;
+	}
+
+	public List<CategoryFacetDTO> getFacets() {
+		return facets;
+	}
+}
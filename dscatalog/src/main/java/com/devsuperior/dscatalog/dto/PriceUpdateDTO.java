@@ -0,0 +1,57 @@
+package com.devsuperior.dscatalog.dto;
+
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.validation.constraints.Positive;
+
+// reajuste em massa: categoryId + factor (preço * factor) ou prices (id -> preço novo), nunca os dois
+public class PriceUpdateDTO implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private Long categoryId;
+
+	@Positive(message = "Fator deve ser um valor positivo")
+	private Double factor;
+
+	private Map<Long, @Positive(message = "Preço deve ser um valor positivo") Double> prices = new LinkedHashMap<>();
+
+	public PriceUpdateDTO() {
+
+	}
+
+	public PriceUpdateDTO(Long categoryId, Double factor) {
+		this.categoryId = categoryId;
+		this.factor = factor;
+	}
+
+	public PriceUpdateDTO(Map<Long, Double> prices) {
+		this.prices = prices;
+	}
+
+	public Long getCategoryId() {
+		return categoryId;
+	}
+
+	public void setCategoryId(Long categoryId) {
+		this.categoryId = categoryId;
+	}
+
+	public Double getFactor() {
+		return factor;
+	}
+
+	public void setFactor(Double factor) {
+		this.factor = factor;
+	}
+
+	public Map<Long, Double> getPrices() {
+		return prices;
+	}
+
+	public void setPrices(Map<Long, Double> prices) {
+		this.prices = prices;
+	}
+}
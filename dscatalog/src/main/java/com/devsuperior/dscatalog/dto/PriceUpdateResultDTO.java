@@ -0,0 +1,37 @@
+package com.devsuperior.dscatalog.dto;
+
+import java.io.Serializable;
+import java.util.List;
+
+public class PriceUpdateResultDTO implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private int updated;
+	private List<Long> notFound = List.of();										// ids da lista que não existem
+
+	public PriceUpdateResultDTO() {
+
+	}
+
+	public PriceUpdateResultDTO(int updated, List<Long> notFound) {
+		this.updated = updated;
+		this.notFound = notFound;
+	}
+
+	public int getUpdated() {
+		return updated;
+	}
+
+	public void setUpdated(int updated) {
+		this.updated = updated;
+	}
+
+	public List<Long> getNotFound() {
+		return notFound;
+	}
+
+	public void setNotFound(List<Long> notFound) {
+		this.notFound = notFound;
+	}
+}
@@ -14,6 +14,7 @@ import javax.validation.constraints.Size;
 
 import com.devsuperior.dscatalog.entities.Category;
 import com.devsuperior.dscatalog.entities.Product;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 public class ProductDTO implements Serializable {
 
@@ -38,6 +39,12 @@ public class ProductDTO implements Serializable {
 	@NotEmpty(message = "Produto sem categoria não é permitido")
 	private List<CategoryDTO> categories = new ArrayList<>();
 	
+	@JsonIgnore
+	private Long version;															// @Version do produto, para o ETag
+	
+	@JsonIgnore
+	private Instant lastModified;													// última alteração do produto ou das categorias
+	
 	public ProductDTO() {
 		
 	}	
@@ -58,14 +65,28 @@ public class ProductDTO implements Serializable {
 		this.price = entity.getPrice();
 		this.imgUrl = entity.getImgUrl();
 		this.date = entity.getDate();
+		this.version = entity.getVersion();
+		this.lastModified = (entity.getUpdatedAt() != null) ? entity.getUpdatedAt() : entity.getCreatedAt();
 		//entity.getCategories().forEach(category -> this.categories.add(new CategoryDTO(category)));
 	}
 	
 	public ProductDTO(Product entity, Set<Category> categories) {
 		this(entity);
-		categories.forEach(category -> {
-			this.categories.add(new CategoryDTO(category));
-		});
+		categories.forEach(category -> addCategory(new CategoryDTO(category)));
+	}
+	
+	// listagem: só as colunas da projeção (sem description) | as categorias entram pelo addCategory
+	public ProductDTO(ProductListRow row) {
+		this(row.getProductId(), row.getName(), null, row.getPrice(), row.getImgUrl(), row.getDate());
+		this.version = row.getVersion();
+		this.lastModified = row.getLastModified();
+	}
+	
+	public void addCategory(CategoryDTO category) {
+		categories.add(category);
+		if (category.getLastModified() != null && (lastModified == null || category.getLastModified().isAfter(lastModified))) {
+			lastModified = category.getLastModified();									// renomear a categoria muda o produto mostrado
+		}
 	}
 
 	public Long getId() {
@@ -123,4 +144,12 @@ public class ProductDTO implements Serializable {
 	public void setCategories(List<CategoryDTO> categories) {
 		this.categories = categories;
 	}
+
+	public Long getVersion() {
+		return version;
+	}
+
+	public Instant getLastModified() {
+		return lastModified;
+	}
 }
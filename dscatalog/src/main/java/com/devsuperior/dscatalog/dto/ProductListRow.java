@@ -0,0 +1,81 @@
+package com.devsuperior.dscatalog.dto;
+
+import java.time.Instant;
+
+/**
+ * Linha da projeção da listagem (SELECT new ... no ProductRepository): um produto x uma categoria,
+ * só com as colunas da listagem (sem a description TEXT). Não é entidade: o Hibernate não guarda
+ * snapshot para dirty checking nem coloca nada no contexto de persistência.
+ */
+public class ProductListRow {
+
+	private final Long productId;
+	private final String name;
+	private final Double price;
+	private final String imgUrl;
+	private final Instant date;
+	private final Long version;
+	private final Instant createdAt;
+	private final Instant updatedAt;
+	private final Long categoryId;														// null se o produto não tem categoria (LEFT JOIN)
+	private final String categoryName;
+	private final Instant categoryCreatedAt;
+	private final Instant categoryUpdatedAt;
+
+	public ProductListRow(Long productId, String name, Double price, String imgUrl, Instant date, Long version,
+			Instant createdAt, Instant updatedAt, Long categoryId, String categoryName, Instant categoryCreatedAt,
+			Instant categoryUpdatedAt) {
+		this.productId = productId;
+		this.name = name;
+		this.price = price;
+		this.imgUrl = imgUrl;
+		this.date = date;
+		this.version = version;
+		this.createdAt = createdAt;
+		this.updatedAt = updatedAt;
+		this.categoryId = categoryId;
+		this.categoryName = categoryName;
+		this.categoryCreatedAt = categoryCreatedAt;
+		this.categoryUpdatedAt = categoryUpdatedAt;
+	}
+
+	public Long getProductId() {
+		return productId;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public Double getPrice() {
+		return price;
+	}
+
+	public String getImgUrl() {
+		return imgUrl;
+	}
+
+	public Instant getDate() {
+		return date;
+	}
+
+	public Long getVersion() {
+		return version;
+	}
+
+	public Instant getLastModified() {
+		return (updatedAt != null) ? updatedAt : createdAt;
+	}
+
+	public Long getCategoryId() {
+		return categoryId;
+	}
+
+	public String getCategoryName() {
+		return categoryName;
+	}
+
+	public Instant getCategoryLastModified() {
+		return (categoryUpdatedAt != null) ? categoryUpdatedAt : categoryCreatedAt;
+	}
+}
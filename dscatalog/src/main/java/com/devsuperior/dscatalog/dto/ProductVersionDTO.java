@@ -0,0 +1,39 @@
+package com.devsuperior.dscatalog.dto;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * Só o que entra no ETag/Last-Modified do detalhe do produto: o GET condicional compara estes valores
+ * e monta o ProductDTO completo apenas quando o cliente não tem a versão atual.
+ */
+public class ProductVersionDTO implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final Long id;
+	private final Long version;
+	private final Instant lastModified;											// última alteração do produto ou das categorias
+
+	public ProductVersionDTO(Long id, Long version, Instant lastModified) {
+		this.id = id;
+		this.version = version;
+		this.lastModified = lastModified;
+	}
+
+	public ProductVersionDTO(ProductDTO dto) {
+		this(dto.getId(), dto.getVersion(), dto.getLastModified());
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public Long getVersion() {
+		return version;
+	}
+
+	public Instant getLastModified() {
+		return lastModified;
+	}
+}
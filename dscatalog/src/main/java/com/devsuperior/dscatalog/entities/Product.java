@@ -13,7 +13,10 @@ import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.JoinTable;
 import javax.persistence.ManyToMany;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
 import javax.persistence.Table;
+import javax.persistence.Version;
 
 @Entity
 @Table(name = "tb_product")
@@ -35,6 +38,16 @@ public class Product implements Serializable {
 	@Column(columnDefinition = "TIMESTAMP WITHOUT TIME ZONE")			// armazenar data no UTC
 	private Instant date;
 	
+	@Column(columnDefinition = "TIMESTAMP WITHOUT TIME ZONE")
+	private Instant createdAt;
+	
+	@Column(columnDefinition = "TIMESTAMP WITHOUT TIME ZONE")
+	private Instant updatedAt;
+	
+	@Version													// incrementado a cada update | ETag e lock otimista
+	@Column(columnDefinition = "BIGINT DEFAULT 0 NOT NULL")		// default para as linhas do data.sql
+	private Long version;
+	
 	@ManyToMany
 	@JoinTable(name = "tb_product_category",
 		joinColumns = @JoinColumn(name = "product_id"), 				//1º JoinColumn, da propria classe (Product)  
@@ -107,6 +120,28 @@ public class Product implements Serializable {
 		return categories;
 	}
 
+	public Instant getCreatedAt() {
+		return createdAt;
+	}
+
+	public Instant getUpdatedAt() {
+		return updatedAt;
+	}
+
+	public Long getVersion() {
+		return version;
+	}
+	
+	@PrePersist
+	public void prePersist() {
+		this.createdAt = Instant.now();
+	}
+	
+	@PreUpdate
+	public void preUpdate() {
+		this.updatedAt = Instant.now();
+	}
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
@@ -18,6 +18,9 @@ import javax.persistence.JoinTable;
 import javax.persistence.ManyToMany;
 import javax.persistence.Table;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -42,6 +45,7 @@ public class User implements UserDetails, Serializable {
 	@JoinTable(name = "tb_user_role",
 		joinColumns = @JoinColumn(name = "user_id"), 				//1º JoinColumn, da propria classe (User)  
 		inverseJoinColumns = @JoinColumn(name = "role_id"))			//2º JoinColumn, da outra classe   (Role)
+	@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "userRoles")		// só os ids das roles | as Role vêm da região role
 	private Set<Role> roles = new HashSet<>();
 	
 	public User() {
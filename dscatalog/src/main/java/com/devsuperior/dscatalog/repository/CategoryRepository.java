@@ -9,7 +9,7 @@ import org.springframework.stereotype.Repository;
 import com.devsuperior.dscatalog.entities.Category;
 
 @Repository
-public interface CategoryRepository extends JpaRepository<Category, Long>{
+public interface CategoryRepository extends JpaRepository<Category, Long>, CategoryRepositoryCustom {
 	
 	@Query("SELECT DISTINCT c FROM Category c")
 	Page<Category> findAllPaged(Pageable pageable);	
@@ -0,0 +1,10 @@
+package com.devsuperior.dscatalog.repository;
+
+import java.util.List;
+
+import com.devsuperior.dscatalog.entities.Category;
+
+public interface CategoryRepositoryCustom {
+
+	List<Category> findAllAfter(KeysetCursor cursor, int limit);
+}
@@ -0,0 +1,24 @@
+package com.devsuperior.dscatalog.repository;
+
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+
+import com.devsuperior.dscatalog.entities.Category;
+
+public class CategoryRepositoryCustomImpl implements CategoryRepositoryCustom {
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	public List<Category> findAllAfter(KeysetCursor cursor, int limit) {
+		String where = cursor.isFirst() ? "" : " WHERE " + cursor.predicate("c");
+		TypedQuery<Category> query = entityManager.createQuery(
+				"SELECT c FROM Category c" + where + " ORDER BY " + cursor.orderClause("c"), Category.class);
+		cursor.bind(query);
+		return query.setMaxResults(limit).getResultList();
+	}
+}
@@ -0,0 +1,43 @@
+package com.devsuperior.dscatalog.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+
+/**
+ * SELECT só das colunas pedidas (sparse fieldsets) para os ids de uma página.
+ * Linhas no formato [id, colunas..., id da associação, label da associação]; sem a associação não há JOIN.
+ * As colunas já foram validadas contra a lista permitida do recurso (FieldSet), nunca vêm cruas da requisição.
+ */
+final class FieldsQuery {
+
+	private FieldsQuery() {
+	}
+
+	static List<Object[]> find(EntityManager entityManager, String entity, List<String> columns, String association,
+			String associationLabel, List<Long> ids) {
+		if (ids.isEmpty()) {
+			return List.of();
+		}
+		StringBuilder jpql = new StringBuilder("SELECT e.id");
+		columns.forEach(column -> jpql.append(", e.").append(column));
+		if (association != null) {
+			jpql.append(", a.id, a.").append(associationLabel);
+		}
+		jpql.append(" FROM ").append(entity).append(" e");
+		if (association != null) {
+			jpql.append(" LEFT JOIN e.").append(association).append(" a");
+		}
+		jpql.append(" WHERE e.id IN :ids");
+
+		List<?> result = entityManager.createQuery(jpql.toString())
+				.setParameter("ids", ids)
+				.getResultList();
+		List<Object[]> rows = new ArrayList<>(result.size());
+		for (Object row : result) {
+			rows.add((row instanceof Object[]) ? (Object[]) row : new Object[] { row });		// só o id: o JPA não devolve array
+		}
+		return rows;
+	}
+}
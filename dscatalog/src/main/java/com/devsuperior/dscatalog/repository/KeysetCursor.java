@@ -0,0 +1,129 @@
+package com.devsuperior.dscatalog.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Set;
+
+import javax.persistence.Query;
+
+import org.springframework.data.domain.Sort.Direction;
+
+import com.devsuperior.dscatalog.services.exceptions.BadRequestException;
+
+/**
+ * Posição de uma paginação por keyset (seek): o valor do orderBy e o id da última linha entregue.
+ * O token opaco devolvido ao cliente é só esta posição serializada em Base64; token inválido ou de outra
+ * ordenação é BadRequestException (400).
+ * Chave null conta como a menor de todas (NULLS FIRST no ASC, NULLS LAST no DESC), igual no ORDER BY e no predicado.
+ */
+public class KeysetCursor {
+
+	private static final String VERSION = "k1";
+	private static final Set<String> SORTABLE = Set.of("id", "name");
+
+	private final String orderBy;
+	private final Direction direction;
+	private final String lastKey;
+	private final Long lastId;														// null na 1ª página
+
+	private KeysetCursor(String orderBy, Direction direction, String lastKey, Long lastId) {
+		this.orderBy = orderBy;
+		this.direction = direction;
+		this.lastKey = lastKey;
+		this.lastId = lastId;
+	}
+
+	public static KeysetCursor first(String orderBy, Direction direction) {
+		if (!SORTABLE.contains(orderBy)) {
+			throw new BadRequestException("Keyset pagination supports orderBy " + SORTABLE);
+		}
+		return new KeysetCursor(orderBy, direction, null, null);
+	}
+
+	// token vazio = 1ª página | o token precisa ter sido gerado para o mesmo orderBy/direction
+	public static KeysetCursor decode(String token, String orderBy, Direction direction) {
+		KeysetCursor first = first(orderBy, direction);
+		if (token == null || token.isBlank()) {
+			return first;
+		}
+		String[] parts;
+		try {
+			parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\|", 5);
+		} catch (IllegalArgumentException e) {
+			throw new BadRequestException("Invalid cursor");
+		}
+		if (parts.length < 4 || !VERSION.equals(parts[0])) {
+			throw new BadRequestException("Invalid cursor");
+		}
+		if (!parts[1].equals(orderBy) || !parts[2].equals(direction.name())) {
+			throw new BadRequestException("Cursor was issued for another orderBy/direction");
+		}
+		try {
+			return first.next((parts.length == 5) ? parts[4] : null, Long.valueOf(parts[3]));	// sem 5ª parte: chave null
+		} catch (NumberFormatException e) {
+			throw new BadRequestException("Invalid cursor");
+		}
+	}
+
+	public KeysetCursor next(String lastKey, Long lastId) {
+		return new KeysetCursor(orderBy, direction, lastKey, lastId);
+	}
+
+	// posição depois da última linha entregue: o nome só vai no token quando a ordem é por nome
+	public KeysetCursor after(Long id, String name) {
+		return next(orderBy.equals("name") ? name : null, id);
+	}
+
+	public String encode() {
+		String raw = String.join("|", VERSION, orderBy, direction.name(), String.valueOf(lastId));
+		if (lastKey != null) {
+			raw += "|" + lastKey;															// "" e null são posições diferentes
+		}
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+
+	public boolean isFirst() {
+		return lastId == null;
+	}
+
+	public String getOrderBy() {
+		return orderBy;
+	}
+
+	public Direction getDirection() {
+		return direction;
+	}
+
+	// (key, id) > (:lastKey, :lastId) expandido, já que o JPQL não tem comparação de tuplas | null é a menor chave
+	String predicate(String alias) {
+		String op = direction.isAscending() ? ">" : "<";
+		String id = alias + ".id";
+		if (orderBy.equals("id")) {
+			return id + " " + op + " :lastId";
+		}
+		String key = alias + "." + orderBy;
+		if (lastKey == null) {
+			return direction.isAscending()
+					? "((" + key + " IS NULL AND " + id + " > :lastId) OR " + key + " IS NOT NULL)"		// depois dos nulls vêm todos os valores
+					: "(" + key + " IS NULL AND " + id + " < :lastId)";										// nulls no fim: só restam nulls
+		}
+		String seek = key + " " + op + " :lastKey OR (" + key + " = :lastKey AND " + id + " " + op + " :lastId)";
+		return direction.isAscending() ? "(" + seek + ")" : "(" + seek + " OR " + key + " IS NULL)";
+	}
+
+	String orderClause(String alias) {
+		String id = alias + ".id " + direction.name();
+		String nulls = direction.isAscending() ? " NULLS FIRST" : " NULLS LAST";
+		return orderBy.equals("id") ? id : alias + "." + orderBy + " " + direction.name() + nulls + ", " + id;
+	}
+
+	void bind(Query query) {
+		if (isFirst()) {
+			return;
+		}
+		query.setParameter("lastId", lastId);
+		if (!orderBy.equals("id") && lastKey != null) {
+			query.setParameter("lastKey", lastKey);
+		}
+	}
+}
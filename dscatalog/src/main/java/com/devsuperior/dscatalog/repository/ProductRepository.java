@@ -1,22 +1,113 @@
 package com.devsuperior.dscatalog.repository;
 
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
+import java.time.Instant;
 import java.util.List;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import com.devsuperior.dscatalog.dto.ProductListRow;
 import com.devsuperior.dscatalog.entities.Category;
 import com.devsuperior.dscatalog.entities.Product;
+import com.devsuperior.dscatalog.services.ProductRange;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long>{
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductRepositoryCustom {
+	
+	// linhas trazidas do banco por ida na exportação (e tamanho do bloco do ProductService.exportAfter)
+	int EXPORT_FETCH_SIZE = 500;
+	
+	// faixas de preço/data: os limites do ProductRange nunca são null, então é o mesmo JPQL para qualquer combinação
+	String RANGE_FILTER = "(:#{#range.priceFiltered} = false OR p.price BETWEEN :#{#range.priceLower} AND :#{#range.priceUpper}) AND "
+			+ "(:#{#range.dateFiltered} = false OR p.date BETWEEN :#{#range.dateLower} AND :#{#range.dateUpper})";
+	
+	// filtro da 1ª fase, o mesmo em todas as variantes (Page/Slice, com ou sem os ids dos índices em memória)
+	// minMatches = 1 é o OR entre as categorias, minMatches = nº de categorias é o AND (sem um JOIN por categoria)
+	// produto sem categoria nunca aparece (o INNER JOIN p.categories da listagem original): IS NOT EMPTY vira um EXISTS
+	String PRODUCT_FILTER = "p.categories IS NOT EMPTY AND (COALESCE(:categories) IS NULL OR p.id IN "
+			+ "(SELECT cp.id FROM Product cp INNER JOIN cp.categories c WHERE c IN :categories "
+			+ "GROUP BY cp.id HAVING COUNT(c) >= :minMatches)) AND "
+			+ "(LOWER(p.name) LIKE LOWER(CONCAT('%', :name, '%')) ) AND " + RANGE_FILTER;
 	
 	@Query("SELECT DISTINCT p FROM Product p INNER JOIN p.categories c WHERE "							// COALESCE, por causa do PostreSQL
 			+ "(COALESCE(:categories) IS NULL OR c IN :categories) AND "
 			+ "(LOWER(p.name) LIKE LOWER(CONCAT('%', :name, '%')) )")									// SE NULL, findAll
 	Page<Product> findProductsWithCategories(List<Category> categories, String name, Pageable pageable); 
 
+	// 1ª fase da listagem: só os ids da página (sem DISTINCT, para o ORDER BY dinâmico funcionar no PostgreSQL)
+	@Query("SELECT p.id FROM Product p WHERE " + PRODUCT_FILTER)
+	Page<Long> findProductIds(List<Category> categories, long minMatches, String name, ProductRange range, Pageable pageable);
+
+	@Query("SELECT p.id FROM Product p WHERE " + PRODUCT_FILTER)
+	Slice<Long> findProductIdsSlice(List<Category> categories, long minMatches, String name, ProductRange range, Pageable pageable);				// Slice não roda o COUNT
+
+	// 1ª fase quando parte do filtro já foi resolvida pelos índices em memória (ProductNameIndex/CategoryProductIndex)
+	@Query("SELECT p.id FROM Product p WHERE p.id IN :ids AND " + PRODUCT_FILTER)
+	Page<Long> findProductIdsIn(List<Category> categories, long minMatches, String name, ProductRange range, List<Long> ids, Pageable pageable);
+
+	@Query("SELECT p.id FROM Product p WHERE p.id IN :ids AND " + PRODUCT_FILTER)
+	Slice<Long> findProductIdsInSlice(List<Category> categories, long minMatches, String name, ProductRange range, List<Long> ids, Pageable pageable);
+
+	// carrega os produtos com as categorias numa única consulta (evita o N+1) | entidades completas: detalhe e escritas
+	@Query("SELECT DISTINCT p FROM Product p LEFT JOIN FETCH p.categories WHERE p.id IN :ids")
+	List<Product> findProductsWithCategoriesByIds(List<Long> ids);
+	
+	// 2ª fase das listagens: projeção só com as colunas mostradas (sem a description), 1 linha por produto x categoria
+	@Query("SELECT new com.devsuperior.dscatalog.dto.ProductListRow(p.id, p.name, p.price, p.imgUrl, p.date, p.version, "
+			+ "p.createdAt, p.updatedAt, c.id, c.name, c.createdAt, c.updatedAt) "
+			+ "FROM Product p LEFT JOIN p.categories c "
+			+ "WHERE p.id IN :ids")
+	List<ProductListRow> findProductListRowsByIds(List<Long> ids);
+
+	// GET condicional do detalhe: versão e datas do produto e das categorias (1 linha por categoria), sem entidades
+	@Query("SELECT p.version, p.createdAt, p.updatedAt, c.createdAt, c.updatedAt "
+			+ "FROM Product p LEFT JOIN p.categories c WHERE p.id = :id")
+	List<Object[]> findVersionRowsById(Long id);
+
+	@Query("SELECT p.id, p.name FROM Product p")
+	List<Object[]> findAllIdsAndNames();
+
+	@Query("SELECT p.id, p.price, p.date FROM Product p")
+	List<Object[]> findAllPricesAndDates();
+
+	// facets: (id da categoria, nº de produtos que casam com o nome e as faixas) num único GROUP BY
+	@Query("SELECT c.id, COUNT(p) FROM Product p INNER JOIN p.categories c WHERE "
+			+ "(LOWER(p.name) LIKE LOWER(CONCAT('%', :name, '%')) ) AND " + RANGE_FILTER + " GROUP BY c.id")
+	List<Object[]> countProductsByCategory(String name, ProductRange range);
+
+	// pares (categoria, produto) da tb_product_category para o CategoryProductIndex
+	@Query("SELECT c.id, p.id FROM Product p INNER JOIN p.categories c")
+	List<Object[]> findAllCategoryProductIds();
+	
+	// exportação: cursor forward-only (Stream = ScrollableResults do Hibernate) com fetch size fixo, em ordem de id
+	// entidades read-only: sem snapshot de dirty checking | precisa de transação aberta enquanto o Stream é lido
+	@QueryHints({ @QueryHint(name = HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE), @QueryHint(name = HINT_READONLY, value = "true") })
+	@Query("SELECT p FROM Product p WHERE p.id > :afterId ORDER BY p.id")
+	Stream<Product> streamAllAfter(Long afterId);
+	
+	// exportação: categorias de um bloco de produtos numa consulta [produto id, categoria id, categoria nome]
+	@Query("SELECT p.id, c.id, c.name FROM Product p INNER JOIN p.categories c WHERE p.id IN :ids")
+	List<Object[]> findCategoryNamesByProductIds(List<Long> ids);
+	
+	// reajuste em massa: 1 UPDATE para a categoria toda, sem carregar entidades | version e updatedAt como no update normal (ETag, lock otimista)
+	@Modifying(clearAutomatically = true)
+	@Query("UPDATE Product p SET p.price = p.price * :factor, p.version = p.version + 1, p.updatedAt = :now "
+			+ "WHERE p.id IN (SELECT cp.id FROM Product cp INNER JOIN cp.categories c WHERE c.id = :categoryId)")
+	int multiplyPricesByCategory(Long categoryId, Double factor, Instant now);
+	
+	// preços depois do reajuste, para os caches e o ProductRangeIndex [id, preço]
+	@Query("SELECT p.id, p.price FROM Product p INNER JOIN p.categories c WHERE c.id = :categoryId")
+	List<Object[]> findPricesByCategory(Long categoryId);
 }
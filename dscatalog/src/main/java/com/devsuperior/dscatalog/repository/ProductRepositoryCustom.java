@@ -0,0 +1,23 @@
+package com.devsuperior.dscatalog.repository;
+
+import java.util.List;
+import java.util.Map;
+
+import com.devsuperior.dscatalog.entities.Category;
+import com.devsuperior.dscatalog.entities.Product;
+import com.devsuperior.dscatalog.services.ProductRange;
+
+public interface ProductRepositoryCustom {
+
+	// ids/categories null e name vazio não filtram | minMatches como no ProductRepository | limit normalmente é o tamanho da página + 1
+	List<Long> findProductIdsAfter(List<Category> categories, long minMatches, String name, ProductRange range, List<Long> ids, KeysetCursor cursor, int limit);
+	
+	// sparse fieldsets: linhas [id, colunas..., categoria id, categoria nome] | sem withCategories não há JOIN
+	List<Object[]> findProductFields(List<Long> ids, List<String> columns, boolean withCategories);
+	
+	// carga em lote: INSERTs em batch JDBC (produtos e tb_product_category) | preenche o id gerado em cada produto
+	void insertBatch(List<Product> products);
+	
+	// reajuste por lista id -> preço: 1 UPDATE ... CASE por bloco de ids | devolve os ids que existiam (SELECT do bloco)
+	List<Long> updatePrices(Map<Long, Double> prices);
+}
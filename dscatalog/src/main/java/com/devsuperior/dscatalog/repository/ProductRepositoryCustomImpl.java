@@ -0,0 +1,158 @@
+package com.devsuperior.dscatalog.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+
+import org.hibernate.Session;
+
+import com.devsuperior.dscatalog.entities.Category;
+import com.devsuperior.dscatalog.entities.Product;
+import com.devsuperior.dscatalog.services.ProductRange;
+
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+	private static final String INSERT_PRODUCT = "INSERT INTO tb_product (name, description, price, img_url, date, created_at, version) "
+			+ "VALUES (?, ?, ?, ?, ?, ?, 0)";
+	
+	private static final String INSERT_PRODUCT_CATEGORY = "INSERT INTO tb_product_category (product_id, category_id) VALUES (?, ?)";
+	
+	// PRODUCT_FILTER do ProductRepository com as expressões SpEL do ProductRange (:#{#range.priceLower}) como parâmetros comuns (:priceLower)
+	private static final String PRODUCT_FILTER = ProductRepository.PRODUCT_FILTER.replaceAll(":#\\{#range\\.(\\w+)\\}", ":$1");
+	
+	// ids por UPDATE ... CASE: limita o texto do comando e o nº de parâmetros (2 por id no CASE + 1 no IN)
+	private static final int PRICE_CHUNK = 500;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	/*
+	 * Mesmo filtro das consultas @Query da 1ª fase: não há JPQL por combinação de filtros. O texto só varia com
+	 * a lista de ids (como no findProductIdsIn) e com a chave de ordenação do cursor, então são poucas formas fixas
+	 */
+	@Override
+	public List<Long> findProductIdsAfter(List<Category> categories, long minMatches, String name, ProductRange range, List<Long> ids, KeysetCursor cursor, int limit) {
+		String jpql = "SELECT p.id FROM Product p WHERE " + (ids == null ? "" : "p.id IN :ids AND ") + PRODUCT_FILTER
+				+ (cursor.isFirst() ? "" : " AND " + cursor.predicate("p")) + " ORDER BY " + cursor.orderClause("p");
+		TypedQuery<Long> query = entityManager.createQuery(jpql, Long.class);
+		if (ids != null) {
+			query.setParameter("ids", ids);
+		}
+		query.setParameter("categories", categories);
+		query.setParameter("minMatches", minMatches);
+		query.setParameter("name", name);
+		query.setParameter("priceFiltered", range.isPriceFiltered());
+		query.setParameter("priceLower", range.getPriceLower());
+		query.setParameter("priceUpper", range.getPriceUpper());
+		query.setParameter("dateFiltered", range.isDateFiltered());
+		query.setParameter("dateLower", range.getDateLower());
+		query.setParameter("dateUpper", range.getDateUpper());
+		cursor.bind(query);
+		return query.setMaxResults(limit).getResultList();
+	}
+
+	@Override
+	public List<Object[]> findProductFields(List<Long> ids, List<String> columns, boolean withCategories) {
+		return FieldsQuery.find(entityManager, "Product", columns, withCategories ? "categories" : null, "name", ids);
+	}
+
+	/*
+	 * Com IDENTITY o Hibernate desliga o batch de INSERT (precisa do id de cada linha antes da próxima);
+	 * aqui o batch vai direto na conexão da transação e os ids voltam todos juntos pelo getGeneratedKeys
+	 */
+	@Override
+	public void insertBatch(List<Product> products) {
+		Timestamp now = Timestamp.from(Instant.now());
+		entityManager.unwrap(Session.class).doWork(connection -> {
+			try (PreparedStatement statement = connection.prepareStatement(INSERT_PRODUCT, new String[] { "id" })) {
+				for (Product product : products) {
+					statement.setString(1, product.getName());
+					statement.setString(2, product.getDescription());
+					statement.setObject(3, product.getPrice(), Types.DOUBLE);
+					statement.setString(4, product.getImgUrl());
+					if (product.getDate() == null) {
+						statement.setNull(5, Types.TIMESTAMP);
+					} else {
+						statement.setTimestamp(5, Timestamp.from(product.getDate()));
+					}
+					statement.setTimestamp(6, now);
+					statement.addBatch();
+				}
+				statement.executeBatch();
+				try (ResultSet keys = statement.getGeneratedKeys()) {
+					for (Product product : products) {
+						if (!keys.next()) {
+							throw new SQLException("Generated id missing for product " + product.getName());
+						}
+						product.setId(keys.getLong(1));
+					}
+				}
+			}
+			try (PreparedStatement statement = connection.prepareStatement(INSERT_PRODUCT_CATEGORY)) {
+				for (Product product : products) {
+					for (Category category : product.getCategories()) {
+						statement.setLong(1, product.getId());
+						statement.setLong(2, category.getId());
+						statement.addBatch();
+					}
+				}
+				statement.executeBatch();
+			}
+		});
+	}
+
+	/*
+	 * Só a coluna price (+ version/updated_at): 1 UPDATE ... SET price = CASE id WHEN ? THEN ? ... END por bloco de ids,
+	 * em ordem de id (locks sempre na mesma ordem). Os ids existentes vêm de um SELECT do mesmo bloco, não das
+	 * contagens do executeBatch (drivers que devolvem SUCCESS_NO_INFO não dizem quais linhas existiam)
+	 */
+	@Override
+	public List<Long> updatePrices(Map<Long, Double> prices) {
+		Timestamp now = Timestamp.from(Instant.now());
+		List<Long> ids = new ArrayList<>(new TreeSet<>(prices.keySet()));
+		List<Long> updated = new ArrayList<>(ids.size());
+		entityManager.unwrap(Session.class).doWork(connection -> {
+			for (int from = 0; from < ids.size(); from += PRICE_CHUNK) {
+				List<Long> chunk = ids.subList(from, Math.min(from + PRICE_CHUNK, ids.size()));
+				String in = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+				String update = "UPDATE tb_product SET price = CASE id" + " WHEN ? THEN ?".repeat(chunk.size())
+						+ " END, version = version + 1, updated_at = ? WHERE id IN (" + in + ")";
+				try (PreparedStatement statement = connection.prepareStatement(update)) {
+					int index = 1;
+					for (Long id : chunk) {
+						statement.setLong(index++, id);
+						statement.setDouble(index++, prices.get(id));
+					}
+					statement.setTimestamp(index++, now);
+					for (Long id : chunk) {
+						statement.setLong(index++, id);
+					}
+					statement.executeUpdate();
+				}
+				try (PreparedStatement statement = connection.prepareStatement("SELECT id FROM tb_product WHERE id IN (" + in + ")")) {
+					for (int i = 0; i < chunk.size(); i++) {
+						statement.setLong(i + 1, chunk.get(i));
+					}
+					try (ResultSet rows = statement.executeQuery()) {
+						while (rows.next()) {
+							updated.add(rows.getLong(1));
+						}
+					}
+				}
+			}
+		});
+		return updated;
+	}
+}
@@ -1,12 +1,26 @@
 package com.devsuperior.dscatalog.repository;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.devsuperior.dscatalog.entities.User;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long>{
+public interface UserRepository extends JpaRepository<User, Long>, UserRepositoryCustom {
 	
 	User findByEmail(String email);
+	
+	// 1ª fase do ?fields=: só os ids da página (sem carregar User nem os roles EAGER)
+	@Query("SELECT u.id FROM User u")
+	Page<Long> findUserIds(Pageable pageable);
+	
+	// só troca se o hash ainda for o lido no login: não sobrescreve uma troca de senha concorrente | 0 = outro já trocou
+	@Modifying
+	@Query("UPDATE User u SET u.password = :newHash WHERE u.id = :id AND u.password = :oldHash")
+	int updatePasswordHash(@Param("id") Long id, @Param("oldHash") String oldHash, @Param("newHash") String newHash);
 }
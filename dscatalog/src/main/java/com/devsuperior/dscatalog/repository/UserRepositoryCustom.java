@@ -0,0 +1,9 @@
+package com.devsuperior.dscatalog.repository;
+
+import java.util.List;
+
+public interface UserRepositoryCustom {
+
+	// sparse fieldsets: linhas [id, colunas..., role id, role authority] | sem withRoles não há JOIN
+	List<Object[]> findUserFields(List<Long> ids, List<String> columns, boolean withRoles);
+}
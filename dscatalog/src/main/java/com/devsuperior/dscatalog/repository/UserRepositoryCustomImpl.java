@@ -0,0 +1,17 @@
+package com.devsuperior.dscatalog.repository;
+
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	public List<Object[]> findUserFields(List<Long> ids, List<String> columns, boolean withRoles) {
+		return FieldsQuery.find(entityManager, "User", columns, withRoles ? "roles" : null, "authority", ids);
+	}
+}
@@ -16,9 +16,11 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import com.devsuperior.dscatalog.dto.CategoryDTO;
+import com.devsuperior.dscatalog.dto.CursorPageDTO;
 import com.devsuperior.dscatalog.services.CategoryService;
 
 @RestController
@@ -33,7 +35,8 @@ public class CategoryResource {
 			@RequestParam(value = "page", defaultValue = "0") Integer page,
 			@RequestParam(value = "linesPerPage", defaultValue = "12") Integer linesPerPage,
 			@RequestParam(value = "direction", defaultValue = "ASC") String direction,
-			@RequestParam(value = "orderBy", defaultValue = "name") String orderBy
+			@RequestParam(value = "orderBy", defaultValue = "name") String orderBy,
+			WebRequest request
 			) {
 		
 		PageRequest pageRequest = PageRequest.of(page, 
@@ -42,12 +45,31 @@ public class CategoryResource {
 				orderBy);
 		
 		Page<CategoryDTO> list = service.findAllPaged(pageRequest);
+		if (request.checkNotModified(ETags.of(list, ETags::of))) {
+			return null;																	// 304 sem corpo
+		}
+		return ResponseEntity.ok(list);
+	}
+	
+	// paginação por keyset: cursor vazio na 1ª página, depois o nextCursor da resposta anterior
+	@GetMapping(params = "cursor")
+	public ResponseEntity<CursorPageDTO<CategoryDTO>> findAllKeyset(
+			@RequestParam(value = "cursor") String cursor,
+			@RequestParam(value = "linesPerPage", defaultValue = "12") Integer linesPerPage,
+			@RequestParam(value = "direction", defaultValue = "ASC") String direction,
+			@RequestParam(value = "orderBy", defaultValue = "name") String orderBy
+			) {
+		
+		CursorPageDTO<CategoryDTO> list = service.findAllKeyset(cursor, linesPerPage, orderBy, Direction.valueOf(direction));
 		return ResponseEntity.ok(list);
 	}
 	
 	@GetMapping(value = "/{id}")
-	public ResponseEntity<CategoryDTO> findById(@PathVariable Long id) {
+	public ResponseEntity<CategoryDTO> findById(@PathVariable Long id, WebRequest request) {
 		CategoryDTO categoryDTO = service.findById(id);
+		if (request.checkNotModified(ETags.of(categoryDTO), ETags.lastModified(categoryDTO.getLastModified()))) {
+			return null;																	// 304 sem corpo
+		}
 		return ResponseEntity.ok(categoryDTO);
 	}
 	
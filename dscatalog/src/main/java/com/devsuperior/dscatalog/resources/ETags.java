@@ -0,0 +1,70 @@
+package com.devsuperior.dscatalog.resources;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.function.Function;
+
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import com.devsuperior.dscatalog.dto.CategoryDTO;
+import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.dto.ProductVersionDTO;
+
+/**
+ * ETag forte e Last-Modified dos GETs de catálogo, calculados do próprio DTO devolvido
+ * (versão do produto + última alteração do produto e das categorias mostradas).
+ * Como o DTO vem dos caches, o 304 de um hit não consulta o banco nem serializa nada,
+ * e o ETag nunca descreve um corpo diferente do que foi enviado.
+ * No detalhe do produto o GET condicional compara primeiro o ProductVersionDTO (do CatalogByIdCache ou de uma consulta
+ * só de versão e datas) e monta o DTO apenas se o ETag mudou; o de categoria já vem do CategoryCatalog em memória.
+ * Num miss do ProductPageCache a listagem condicional ainda faz as duas fases antes do 304 (o resultado fica no cache).
+ */
+final class ETags {
+
+	private ETags() {
+	}
+
+	static String of(ProductDTO dto) {
+		return of(new ProductVersionDTO(dto));
+	}
+
+	static String of(ProductVersionDTO version) {
+		return "p" + version.getId() + "." + version.getVersion() + "." + millis(version.getLastModified());
+	}
+
+	static String of(CategoryDTO dto) {
+		return "c" + dto.getId() + "." + millis(dto.getLastModified());
+	}
+
+	// página: ETag de cada elemento na ordem mostrada + total (um produto novo fora da página muda o total)
+	// sem Last-Modified: um produto removido da página não avança a data de nenhum elemento
+	static <T> String of(Page<T> page, Function<T, String> etag) {
+		StringBuilder sb = new StringBuilder();
+		sb.append(page.getNumber()).append('/').append(page.getSize()).append('/').append(page.getTotalElements());
+		page.forEach(item -> sb.append('|').append(etag.apply(item)));
+		return DigestUtils.md5DigestAsHex(sb.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	// If-None-Match ou If-Modified-Since presentes: vale a pena a verificação barata antes de montar o corpo
+	static boolean isConditional(WebRequest request) {
+		return request.getHeader(HttpHeaders.IF_NONE_MATCH) != null || request.getHeader(HttpHeaders.IF_MODIFIED_SINCE) != null;
+	}
+
+	// só compara (não grava 304 nem headers na resposta): se o ETag barato não casar, os headers vêm do DTO montado depois
+	static boolean notModified(WebRequest request, String etag, long lastModified) {
+		return new ServletWebRequest(((ServletWebRequest) request).getRequest()).checkNotModified(etag, lastModified);
+	}
+
+	// -1 = sem Last-Modified (linhas do data.sql nunca alteradas)
+	static long lastModified(Instant instant) {
+		return (instant == null) ? -1 : instant.toEpochMilli();
+	}
+
+	private static long millis(Instant instant) {
+		return (instant == null) ? 0 : instant.toEpochMilli();
+	}
+}
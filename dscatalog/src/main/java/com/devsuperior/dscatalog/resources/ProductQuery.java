@@ -0,0 +1,155 @@
+package com.devsuperior.dscatalog.resources;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort.Direction;
+
+import com.devsuperior.dscatalog.services.CategoryFilter;
+import com.devsuperior.dscatalog.services.ProductRange;
+
+/**
+ * Parâmetros de filtro e paginação comuns a todas as variantes do GET /products (página, fields, slice, facets, cursor),
+ * ligados uma vez por @ModelAttribute. Os valores iniciais são os defaultValue dos antigos @RequestParam
+ * (que também valiam para o parâmetro vazio, ?page=, por isso os setters ignoram null).
+ */
+public class ProductQuery {
+
+	private Long categoryId = 0L;
+	private List<Long> categoryIds;															// 1,2,3 | tem precedência sobre o categoryId
+	private String match = "any";															// all = AND | any = OR
+	private String name = "";
+	private Double minPrice;
+	private Double maxPrice;
+	private Instant from;																	// ISO-8601, ex: 2020-07-13T00:00:00Z
+	private Instant to;
+	private Integer page = 0;
+	private Integer linesPerPage = 12;
+	private String direction = "ASC";
+	private String orderBy = "name";
+
+	public CategoryFilter categories() {
+		return CategoryFilter.of(categoryId, categoryIds, match);
+	}
+
+	public ProductRange range() {
+		return ProductRange.of(minPrice, maxPrice, from, to);
+	}
+
+	public PageRequest pageRequest() {
+		return PageRequest.of(page, linesPerPage, sortDirection(), orderBy);
+	}
+
+	public Direction sortDirection() {
+		return Direction.valueOf(direction);
+	}
+
+	public Long getCategoryId() {
+		return categoryId;
+	}
+
+	public void setCategoryId(Long categoryId) {
+		this.categoryId = categoryId;
+	}
+
+	public List<Long> getCategoryIds() {
+		return categoryIds;
+	}
+
+	public void setCategoryIds(List<Long> categoryIds) {
+		this.categoryIds = categoryIds;
+	}
+
+	public String getMatch() {
+		return match;
+	}
+
+	public void setMatch(String match) {
+		if (match != null) {
+			this.match = match;
+		}
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		if (name != null) {
+			this.name = name;
+		}
+	}
+
+	public Double getMinPrice() {
+		return minPrice;
+	}
+
+	public void setMinPrice(Double minPrice) {
+		this.minPrice = minPrice;
+	}
+
+	public Double getMaxPrice() {
+		return maxPrice;
+	}
+
+	public void setMaxPrice(Double maxPrice) {
+		this.maxPrice = maxPrice;
+	}
+
+	public Instant getFrom() {
+		return from;
+	}
+
+	public void setFrom(Instant from) {
+		this.from = from;
+	}
+
+	public Instant getTo() {
+		return to;
+	}
+
+	public void setTo(Instant to) {
+		this.to = to;
+	}
+
+	public Integer getPage() {
+		return page;
+	}
+
+	public void setPage(Integer page) {
+		if (page != null) {
+			this.page = page;
+		}
+	}
+
+	public Integer getLinesPerPage() {
+		return linesPerPage;
+	}
+
+	public void setLinesPerPage(Integer linesPerPage) {
+		if (linesPerPage != null) {
+			this.linesPerPage = linesPerPage;
+		}
+	}
+
+	public String getDirection() {
+		return direction;
+	}
+
+	public void setDirection(String direction) {
+		if (direction != null) {
+			this.direction = direction;
+		}
+	}
+
+	public String getOrderBy() {
+		return orderBy;
+	}
+
+	public void setOrderBy(String orderBy) {
+		if (orderBy != null) {
+			this.orderBy = orderBy;
+		}
+	}
+}
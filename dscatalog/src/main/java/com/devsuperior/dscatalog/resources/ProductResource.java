@@ -1,27 +1,63 @@
 package com.devsuperior.dscatalog.resources;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.WebAsyncTask;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import com.devsuperior.dscatalog.dto.BatchResultDTO;
+import com.devsuperior.dscatalog.dto.CsvImportResultDTO;
+import com.devsuperior.dscatalog.dto.CursorPageDTO;
+import com.devsuperior.dscatalog.dto.FacetedPageDTO;
+import com.devsuperior.dscatalog.dto.PriceUpdateDTO;
+import com.devsuperior.dscatalog.dto.PriceUpdateResultDTO;
 import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.dto.ProductVersionDTO;
+import com.devsuperior.dscatalog.services.FieldSet;
+import com.devsuperior.dscatalog.services.ProductBatchService;
 import com.devsuperior.dscatalog.services.ProductService;
+import com.devsuperior.dscatalog.services.exceptions.BadRequestException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 
 @RestController
 @RequestMapping(value = "/products")
@@ -29,29 +65,164 @@ public class ProductResource {
 
 	@Autowired
 	private ProductService service;
+	
+	@Autowired
+	private ProductBatchService batchService;
+	
+	@Autowired
+	private ObjectMapper mapper;
+	
+	@Value("${catalog.export.timeout-minutes:30}")
+	private long exportTimeoutMinutes;
 
-	@GetMapping
-	public ResponseEntity<Page<ProductDTO>> findAllPaged(
-			@RequestParam(value = "categoryId", defaultValue = "0") Long categoryId,
-			@RequestParam(value = "name", defaultValue = "") String name,
-			@RequestParam(value = "page", defaultValue = "0") Integer page,
-			@RequestParam(value = "linesPerPage", defaultValue = "12") Integer linesPerPage,
-			@RequestParam(value = "direction", defaultValue = "ASC") String direction,
-			@RequestParam(value = "orderBy", defaultValue = "name") String orderBy) {
-
-		PageRequest pageRequest = PageRequest.of(page, 
-				linesPerPage, 
-				Direction.valueOf(direction), 
-				orderBy);
-
-		Page<ProductDTO> list = service.findAllPaged(categoryId, name, pageRequest);
+	/*
+	 * Variantes do GET /products, escolhidas pelos parâmetros fields, slice=true, facets=true e cursor: cada mapping
+	 * exclui os outros, então uma combinação (ex.: slice=true&facets=true, cursor com fields) não casa com nenhum e dá 400
+	 */
+	@GetMapping(params = { "!fields", "slice!=true", "facets!=true", "!cursor" })
+	public ResponseEntity<Page<ProductDTO>> findAllPaged(@ModelAttribute ProductQuery query, WebRequest request) {
+		Page<ProductDTO> list = service.findAllPaged(query.categories(), query.getName(), query.range(), query.pageRequest());
+		if (request.checkNotModified(ETags.of(list, ETags::of))) {							// miss no ProductPageCache: a página já foi montada
+			return null;																	// 304 sem corpo
+		}
 		return ResponseEntity.ok(list);
 	}
 
+	// sparse fieldsets: ?fields=id,name,price,imgUrl | só as colunas pedidas saem do banco e vão para o JSON
+	@GetMapping(params = { "fields", "slice!=true", "facets!=true", "!cursor" })
+	public ResponseEntity<Page<Map<String, Object>>> findAllPagedFields(@RequestParam(value = "fields") String fields,
+			@ModelAttribute ProductQuery query) {
+		Page<Map<String, Object>> list = service.findAllPaged(query.categories(), query.getName(), query.range(), query.pageRequest(), 
+				FieldSet.of(fields, ProductService.FIELDS));
+		return ResponseEntity.ok(list);
+	}
+
+	// infinite scroll: só sabe se há próxima página, sem o COUNT do total
+	@GetMapping(params = { "slice=true", "!fields", "facets!=true", "!cursor" })
+	public ResponseEntity<Slice<ProductDTO>> findAllSliced(@ModelAttribute ProductQuery query) {
+		Slice<ProductDTO> list = service.findAllSliced(query.categories(), query.getName(), query.range(), query.pageRequest());
+		return ResponseEntity.ok(list);
+	}
+
+	// página + contagem de produtos por categoria (facets), em vez de uma requisição por categoria
+	@GetMapping(params = { "facets=true", "!fields", "slice!=true", "!cursor" })
+	public ResponseEntity<FacetedPageDTO<ProductDTO>> findAllFaceted(@ModelAttribute ProductQuery query) {
+		FacetedPageDTO<ProductDTO> list = service.findAllFaceted(query.categories(), query.getName(), query.range(), query.pageRequest());
+		return ResponseEntity.ok(list);
+	}
+
+	// paginação por keyset: cursor vazio na 1ª página, depois o nextCursor da resposta anterior (o page é ignorado)
+	@GetMapping(params = { "cursor", "!fields", "slice!=true", "facets!=true" })
+	public ResponseEntity<CursorPageDTO<ProductDTO>> findAllKeyset(@RequestParam(value = "cursor") String cursor,
+			@ModelAttribute ProductQuery query) {
+		CursorPageDTO<ProductDTO> list = service.findAllKeyset(query.categories(), query.getName(), query.range(), cursor, 
+				query.getLinesPerPage(), query.getOrderBy(), query.sortDirection());
+		return ResponseEntity.ok(list);
+	}
+
+	/*
+	 * Catálogo inteiro em NDJSON (1 produto por linha, em ordem de id), sem paginação por OFFSET
+	 * afterId retoma a partir do último id recebido | Accept-Encoding: gzip comprime o stream
+	 */
+	/*
+	 * WebAsyncTask com timeout próprio (catalog.export.timeout-minutes): só o feed precisa de minutos, as demais
+	 * requisições assíncronas continuam com o padrão do container. O corpo vai direto para a resposta no thread da task
+	 */
+	@GetMapping(value = "/export")
+	public WebAsyncTask<Void> export(
+			@RequestParam(value = "afterId", defaultValue = "0") Long afterId,
+			@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, defaultValue = "") String acceptEncoding,
+			HttpServletResponse response) throws IOException {
+		
+		String coding = gzipCoding(acceptEncoding);
+		boolean gzip = (coding != null);
+		response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+		response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);							// com ou sem gzip: a resposta depende do header
+		if (gzip) {
+			response.setHeader(HttpHeaders.CONTENT_ENCODING, coding);
+		}
+		response.flushBuffer();		// status e headers saem neste thread: a task só escreve o corpo (a resposta não é thread-safe)
+		
+		ObjectWriter writer = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);		// o buffer decide o flush
+		Callable<Void> body = () -> {
+			OutputStream out = response.getOutputStream();
+			OutputStream target = gzip ? new GZIPOutputStream(out, 8192) : out;
+			try (JsonGenerator generator = mapper.getFactory().createGenerator(target)) {
+				generator.setRootValueSeparator(null);
+				service.exportAfter(afterId, product -> {
+					try {
+						writer.writeValue(generator, product);
+						generator.writeRaw('\n');												// toda linha completa termina em \n (retomada segura)
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);										// cliente desconectou: encerra o cursor
+					}
+				});
+			}
+			return null;
+		};
+		return new WebAsyncTask<>(TimeUnit.MINUTES.toMillis(exportTimeoutMinutes), body);
+	}
+	
+	/*
+	 * Codificação gzip aceita pelo Accept-Encoding ("gzip" ou o antigo "x-gzip", no nome que o cliente usou), ou null.
+	 * Cada item é coding;q=valor: q=0 recusa, "*" vale para o gzip quando ele não aparece explicitamente
+	 */
+	private static String gzipCoding(String acceptEncoding) {
+		Double gzip = null;
+		Double xGzip = null;
+		Double any = null;
+		for (String item : acceptEncoding.split(",")) {
+			String[] parts = item.split(";");
+			String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+			double q = 1.0;
+			for (int i = 1; i < parts.length; i++) {
+				String param = parts[i].trim();
+				if (param.length() > 2 && param.substring(0, 2).equalsIgnoreCase("q=")) {
+					try {
+						q = Double.parseDouble(param.substring(2).trim());
+					} catch (NumberFormatException e) {
+						q = 0.0;																// q inválido: trata como recusa
+					}
+				}
+			}
+			if (coding.equals("gzip")) {
+				gzip = q;
+			} else if (coding.equals("x-gzip")) {
+				xGzip = q;
+			} else if (coding.equals("*")) {
+				any = q;
+			}
+		}
+		if (gzip != null) {
+			return (gzip > 0) ? "gzip" : null;
+		}
+		if (xGzip != null) {
+			return (xGzip > 0) ? "x-gzip" : null;
+		}
+		return (any != null && any > 0) ? "gzip" : null;
+	}
+
 	@GetMapping(value = "/{id}")
-	public ResponseEntity<ProductDTO> findById(@PathVariable Long id) {
-		ProductDTO ProductDTO = service.findById(id);
-		return ResponseEntity.ok(ProductDTO);
+	public ResponseEntity<ProductDTO> findById(@PathVariable Long id, WebRequest request) {
+		if (ETags.isConditional(request)) {
+			ProductVersionDTO version = service.findVersionById(id);						// sem montar o DTO
+			String etag = ETags.of(version);
+			long lastModified = ETags.lastModified(version.getLastModified());
+			if (ETags.notModified(request, etag, lastModified) && request.checkNotModified(etag, lastModified)) {
+				return null;																// 304 sem corpo
+			}
+		}
+		ProductDTO productDTO = service.findById(id);
+		if (request.checkNotModified(ETags.of(productDTO), ETags.lastModified(productDTO.getLastModified()))) {
+			return null;																	// 304 sem corpo
+		}
+		return ResponseEntity.ok(productDTO);
+	}
+
+	@GetMapping(value = "/{id}", params = "fields")
+	public ResponseEntity<Map<String, Object>> findByIdFields(@PathVariable Long id, @RequestParam(value = "fields") String fields) {
+		Map<String, Object> product = service.findById(id, FieldSet.of(fields, ProductService.FIELDS));
+		return ResponseEntity.ok(product);
 	}
 
 	@PostMapping
@@ -64,6 +235,36 @@ public class ProductResource {
 		return ResponseEntity.created(uri).body(dto);
 	}
 
+	/*
+	 * Carga em lote: array JSON ou NDJSON lido em stream, o corpo inteiro nunca fica em memória
+	 * 200 com as contagens, os itens rejeitados (até max-rejects) e o throughput, mesmo com itens rejeitados
+	 */
+	@PostMapping(value = "/batch", consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE })
+	public ResponseEntity<BatchResultDTO> insertBatch(InputStream body) throws IOException {
+		try (MappingIterator<ProductDTO> items = mapper.readerFor(ProductDTO.class).readValues(body)) {
+			return ResponseEntity.ok(batchService.insertBatch(items));
+		} catch (JsonProcessingException e) {											// nem o início do corpo é JSON
+			throw new BadRequestException("Malformed body: " + e.getOriginalMessage());
+		}
+	}
+
+	// planilha de fornecedor: lida linha a linha do corpo (charset do Content-Type, UTF-8 se ausente)
+	@PostMapping(value = "/import", consumes = "text/csv")
+	public ResponseEntity<CsvImportResultDTO> importCsv(InputStream body,
+			@RequestHeader(value = HttpHeaders.CONTENT_TYPE) String contentType) {
+		Charset charset = MediaType.parseMediaType(contentType).getCharset();
+		CsvImportResultDTO result = batchService.importCsv(
+				new InputStreamReader(body, (charset == null) ? StandardCharsets.UTF_8 : charset));
+		return ResponseEntity.ok(result);
+	}
+
+	// reajuste em massa: {"categoryId": 1, "factor": 0.9} ou {"prices": {"1": 80.0, "2": 120.0}}
+	@PatchMapping(value = "/prices")
+	public ResponseEntity<PriceUpdateResultDTO> updatePrices(@Valid @RequestBody PriceUpdateDTO dto) {
+		PriceUpdateResultDTO result = service.updatePrices(dto);
+		return ResponseEntity.ok(result);
+	}
+
 	@PutMapping(value = "/{id}")
 	public ResponseEntity<ProductDTO> update(@PathVariable Long id, @Valid @RequestBody ProductDTO dto) {
 		dto = service.update(id, dto);
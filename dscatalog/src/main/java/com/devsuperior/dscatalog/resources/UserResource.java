@@ -1,6 +1,7 @@
 package com.devsuperior.dscatalog.resources;
 
 import java.net.URI;
+import java.util.Map;
 
 import javax.validation.Valid;
 
@@ -23,6 +24,7 @@ import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import com.devsuperior.dscatalog.dto.UserDTO;
 import com.devsuperior.dscatalog.dto.UserInsertDTO;
 import com.devsuperior.dscatalog.dto.UserUpdateDTO;
+import com.devsuperior.dscatalog.services.FieldSet;
 import com.devsuperior.dscatalog.services.UserService;
 
 @RestController
@@ -47,6 +49,29 @@ public class UserResource {
 		return ResponseEntity.ok(list);
 	}
 
+	// sparse fieldsets: ?fields=id,firstName,email | roles só são carregados se pedidos
+	@GetMapping(params = "fields")
+	public ResponseEntity<Page<Map<String, Object>>> findAllPagedFields(@RequestParam(value = "fields") String fields,
+			@RequestParam(value = "page", defaultValue = "0") Integer page,
+			@RequestParam(value = "linesPerPage", defaultValue = "12") Integer linesPerPage,
+			@RequestParam(value = "direction", defaultValue = "ASC") String direction,
+			@RequestParam(value = "orderBy", defaultValue = "firstName") String orderBy) {
+
+		PageRequest pageRequest = PageRequest.of(page, 
+				linesPerPage, 
+				Direction.valueOf(direction), 
+				orderBy);
+
+		Page<Map<String, Object>> list = service.findAllPaged(pageRequest, FieldSet.of(fields, UserService.FIELDS));
+		return ResponseEntity.ok(list);
+	}
+
+	@GetMapping(value = "/{id}", params = "fields")
+	public ResponseEntity<Map<String, Object>> findByIdFields(@PathVariable Long id, @RequestParam(value = "fields") String fields) {
+		Map<String, Object> user = service.findById(id, FieldSet.of(fields, UserService.FIELDS));
+		return ResponseEntity.ok(user);
+	}
+
 	@GetMapping(value = "/{id}")
 	public ResponseEntity<UserDTO> findById(@PathVariable Long id) {
 		UserDTO UserDTO = service.findById(id);
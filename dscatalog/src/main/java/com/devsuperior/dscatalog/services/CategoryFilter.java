@@ -0,0 +1,95 @@
+package com.devsuperior.dscatalog.services;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import com.devsuperior.dscatalog.services.exceptions.BadRequestException;
+
+/**
+ * Filtro de categorias da listagem de produtos: nenhuma, uma ou várias categorias,
+ * combinadas com AND (match=all, o produto tem todas) ou OR (match=any, tem pelo menos uma).
+ */
+public final class CategoryFilter {
+
+	public static final int MAX_CATEGORIES = 50;
+
+	private static final CategoryFilter NONE = new CategoryFilter(Collections.emptyList(), false);
+
+	private final List<Long> ids;																// ordenados e sem repetição
+	private final boolean matchAll;
+
+	private CategoryFilter(List<Long> ids, boolean matchAll) {
+		this.ids = ids;
+		this.matchAll = matchAll;
+	}
+
+	// categoryId = 0 é o "todas as categorias" do parâmetro antigo
+	public static CategoryFilter of(Long categoryId) {
+		return (categoryId == null || categoryId == 0) ? NONE : new CategoryFilter(List.of(categoryId), false);
+	}
+
+	// categoryIds tem precedência sobre categoryId
+	public static CategoryFilter of(Long categoryId, List<Long> categoryIds, String match) {
+		if (categoryIds == null) {
+			return of(categoryId);
+		}
+		if (categoryIds.size() > MAX_CATEGORIES) {
+			throw new BadRequestException("At most " + MAX_CATEGORIES + " categories per request");
+		}
+		boolean matchAll;
+		if ("all".equalsIgnoreCase(match)) {
+			matchAll = true;
+		} else if ("any".equalsIgnoreCase(match)) {
+			matchAll = false;
+		} else {
+			throw new BadRequestException("Invalid match: " + match + " (expected all or any)");
+		}
+		List<Long> ids = categoryIds.stream()
+				.filter(id -> id != null && id != 0)
+				.distinct()
+				.sorted()
+				.collect(Collectors.toUnmodifiableList());
+		return ids.isEmpty() ? NONE : new CategoryFilter(ids, matchAll && ids.size() > 1);
+	}
+
+	public boolean isEmpty() {
+		return ids.isEmpty();
+	}
+
+	public List<Long> getIds() {
+		return ids;
+	}
+
+	public boolean isMatchAll() {
+		return matchAll;
+	}
+
+	// em quantas das categorias o produto precisa estar (HAVING COUNT do fallback no banco)
+	public long getMinMatches() {
+		return matchAll ? ids.size() : 1;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof CategoryFilter)) {
+			return false;
+		}
+		CategoryFilter other = (CategoryFilter) obj;
+		return matchAll == other.matchAll && ids.equals(other.ids);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(ids, matchAll);
+	}
+
+	// chave estável para caches: "all:1,2" é o mesmo filtro que "all:2,1"
+	public String key() {
+		return (matchAll ? "all:" : "any:") + ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+	}
+}
@@ -1,20 +1,28 @@
 package com.devsuperior.dscatalog.services;
 
-import java.util.Optional;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import javax.persistence.EntityNotFoundException;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort.Direction;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.devsuperior.dscatalog.components.CategoryCatalog;
 import com.devsuperior.dscatalog.dto.CategoryDTO;
+import com.devsuperior.dscatalog.dto.CursorPageDTO;
 import com.devsuperior.dscatalog.entities.Category;
 import com.devsuperior.dscatalog.repository.CategoryRepository;
+import com.devsuperior.dscatalog.repository.KeysetCursor;
+import com.devsuperior.dscatalog.services.events.CategoryChangedEvent;
+import com.devsuperior.dscatalog.services.exceptions.BadRequestException;
 import com.devsuperior.dscatalog.services.exceptions.DatabaseException;
 import com.devsuperior.dscatalog.services.exceptions.ResourceNotFoundException;
 
@@ -24,18 +32,48 @@ public class CategoryService {
 	@Autowired
 	private CategoryRepository repository;
 	
-	@Transactional(readOnly = true) 									// readOnly evita o lock no BD | não trava o BD pra fazer essa query
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+	
+	@Autowired
+	private CategoryCatalog catalog;
+	
+	// sem @Transactional: id/name vêm do snapshot em memória, sem conexão | outro orderBy pagina no banco, como antes
 	public Page<CategoryDTO> findAllPaged(PageRequest pageRequest) {
-		Page<Category> list = repository.findAllPaged(pageRequest); 	// Page já é um stream
-		
-		return list.map(category -> new CategoryDTO(category));
+		if (catalog.canSort(pageRequest.getSort())) {
+			return catalog.findAll(pageRequest);
+		}
+		return repository.findAllPaged(pageRequest).map(category -> new CategoryDTO(category));
 	}
 	
 	@Transactional(readOnly = true)
+	public CursorPageDTO<CategoryDTO> findAllKeyset(String cursor, int size, String orderBy, Direction direction) {
+		if (size <= 0) {
+			throw new BadRequestException("linesPerPage must be greater than zero");
+		}
+		KeysetCursor position = KeysetCursor.decode(cursor, orderBy, direction);
+		List<Category> list = repository.findAllAfter(position, size + 1);						// +1 para saber se há próxima página
+		
+		boolean hasNext = list.size() > size;
+		List<CategoryDTO> content = list.stream()
+				.limit(size)
+				.map(category -> new CategoryDTO(category))
+				.collect(Collectors.toList());
+		
+		String nextCursor = null;
+		if (hasNext) {
+			CategoryDTO last = content.get(content.size() - 1);
+			nextCursor = position.after(last.getId(), last.getName()).encode();
+		}
+		return new CursorPageDTO<>(content, nextCursor);
+	}
+	
 	public CategoryDTO findById(Long id) {		
-		Optional<Category> optional = repository.findById(id);
-		Category category = optional.orElseThrow(() -> new ResourceNotFoundException("Entity Not Found"));
-		return new CategoryDTO(category);
+		CategoryDTO dto = catalog.get(id);
+		if (dto == null) {
+			throw new ResourceNotFoundException("Entity Not Found");
+		}
+		return dto;
 	}
 	
 	@Transactional
@@ -43,6 +81,7 @@ public class CategoryService {
 		Category entity = new Category();
 		entity.setName(dto.getName());
 		entity = repository.save(entity);
+		eventPublisher.publishEvent(new CategoryChangedEvent(entity.getId(), false));			// recarrega o CategoryCatalog
 		return new CategoryDTO(entity);
 	}
 	
@@ -53,6 +92,7 @@ public class CategoryService {
 			Category entity = repository.getOne(dto.getId()); 				
 			entity.setName(dto.getName());
 			entity = repository.save(entity);
+			eventPublisher.publishEvent(new CategoryChangedEvent(entity.getId(), false));		// páginas de produtos mostram o nome
 			return new CategoryDTO(entity);
 		} catch(EntityNotFoundException e) {
 			throw new ResourceNotFoundException("Id not Found: " + dto.getId());
@@ -62,6 +102,7 @@ public class CategoryService {
 	public void delete(Long id) {
 		try {
 			repository.deleteById(id);
+			eventPublisher.publishEvent(new CategoryChangedEvent(id, true));
 		} catch (EmptyResultDataAccessException e) {
 			throw new ResourceNotFoundException("Id not Found " + id);
 		} catch(DataIntegrityViolationException e) {
@@ -0,0 +1,89 @@
+package com.devsuperior.dscatalog.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+
+import com.devsuperior.dscatalog.services.exceptions.BadRequestException;
+
+/**
+ * Campos pedidos em ?fields=id,name,price (sparse fieldsets), na ordem pedida.
+ * Só nomes da lista permitida do recurso entram no JPQL; a associação (categories/roles) só é carregada se for pedida.
+ */
+public final class FieldSet {
+
+	private final List<String> fields;
+
+	private FieldSet(List<String> fields) {
+		this.fields = fields;
+	}
+
+	public static FieldSet of(String fields, List<String> allowed) {
+		List<String> list = Arrays.stream(fields.split(","))
+				.map(String::trim)
+				.filter(field -> !field.isEmpty())
+				.distinct()
+				.collect(Collectors.toUnmodifiableList());
+		for (String field : list) {
+			if (!allowed.contains(field)) {
+				throw new BadRequestException("Invalid field: " + field + " (expected " + String.join(",", allowed) + ")");
+			}
+		}
+		if (list.isEmpty()) {
+			throw new BadRequestException("fields must not be empty");
+		}
+		return new FieldSet(list);
+	}
+
+	public List<String> getFields() {
+		return fields;
+	}
+
+	public boolean contains(String field) {
+		return fields.contains(field);
+	}
+
+	// colunas simples do SELECT, além do id que sempre vem na 1ª posição
+	public List<String> columns(String association) {
+		return fields.stream()
+				.filter(field -> !field.equals("id") && !field.equals(association))
+				.collect(Collectors.toUnmodifiableList());
+	}
+
+	/*
+	 * Monta um Map por id a partir das linhas [id, colunas..., id da associação, label da associação],
+	 * com os campos na ordem pedida | várias linhas do mesmo id = um item da associação cada
+	 */
+	public Map<Long, Map<String, Object>> toItems(List<Object[]> rows, String association,
+			BiFunction<Long, String, Object> associationItem) {
+		List<String> columns = columns(association);
+		boolean withAssociation = contains(association);
+		Map<Long, Map<String, Object>> items = new LinkedHashMap<>();
+		for (Object[] row : rows) {
+			Long id = (Long) row[0];
+			Map<String, Object> item = items.computeIfAbsent(id, key -> {
+				Map<String, Object> values = new LinkedHashMap<>();
+				for (String field : fields) {
+					if (field.equals("id")) {
+						values.put(field, key);
+					} else if (field.equals(association)) {
+						values.put(field, new ArrayList<>());
+					} else {
+						values.put(field, row[1 + columns.indexOf(field)]);
+					}
+				}
+				return values;
+			});
+			if (withAssociation && row[1 + columns.size()] != null) {
+				@SuppressWarnings("unchecked")
+				List<Object> list = (List<Object>) item.get(association);
+				list.add(associationItem.apply((Long) row[1 + columns.size()], (String) row[2 + columns.size()]));
+			}
+		}
+		return items;
+	}
+}
@@ -0,0 +1,300 @@
+package com.devsuperior.dscatalog.services;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.devsuperior.dscatalog.components.CategoryCatalog;
+import com.devsuperior.dscatalog.dto.BatchItemResultDTO;
+import com.devsuperior.dscatalog.dto.BatchResultDTO;
+import com.devsuperior.dscatalog.dto.CategoryDTO;
+import com.devsuperior.dscatalog.dto.CsvImportResultDTO;
+import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.entities.Category;
+import com.devsuperior.dscatalog.entities.Product;
+import com.devsuperior.dscatalog.repository.ProductRepository;
+import com.devsuperior.dscatalog.services.events.ProductsImportedEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+
+/**
+ * Carga de produtos em lote (POST /products/batch e /products/import): lê um item por vez do corpo, valida e grava
+ * em blocos de chunk-size, cada bloco na sua transação e com os INSERTs em batch JDBC.
+ * Item inválido é rejeitado sem derrubar o lote; um bloco que falha no banco é desfeito e rejeitado inteiro.
+ * O relatório tem as contagens do corpo todo e só os primeiros max-rejects rejeitados: memória limitada ao bloco.
+ */
+@Service
+public class ProductBatchService {
+
+	private static final CsvMapper CSV_MAPPER = new CsvMapper();
+	
+	private static final CsvSchema CSV_SCHEMA = CsvSchema.emptySchema().withHeader();			// colunas pelo nome no cabeçalho
+	
+	private static final String CATEGORY_SEPARATOR = ";";
+
+	@Value("${catalog.batch-import.chunk-size:500}")
+	private int chunkSize;
+
+	@Value("${catalog.batch-import.max-rejects:1000}")
+	private int maxBatchRejects;
+
+	@Value("${catalog.csv-import.max-rejects:1000}")
+	private int maxRejects;
+
+	@Autowired
+	private ProductRepository repository;
+
+	@Autowired
+	private CategoryCatalog catalog;
+
+	@Autowired
+	private Validator validator;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	public BatchResultDTO insertBatch(MappingIterator<ProductDTO> items) {
+		long start = System.nanoTime();
+		Map<Long, Category> categories = categoriesById();
+		Report report = new Report(maxBatchRejects);
+		List<ProductDTO> chunk = new ArrayList<>(chunkSize);
+		List<Integer> indexes = new ArrayList<>(chunkSize);
+		String error = null;
+		int index = 0;
+		try {
+			while (items.hasNextValue()) {
+				try {
+					chunk.add(items.nextValue());
+					indexes.add(index);
+				} catch (JsonMappingException e) {										// tipo errado num campo: pula só este item
+					report.add(BatchItemResultDTO.rejected(index, List.of(e.getOriginalMessage())));
+				}
+				index++;
+				if (chunk.size() == chunkSize) {
+					writeChunk(chunk, indexes, categories).forEach(report::add);
+					chunk.clear();
+					indexes.clear();
+				}
+			}
+		} catch (JsonProcessingException e) {											// JSON quebrado: não dá para achar o próximo item
+			error = "Malformed body at item " + index + ": " + e.getOriginalMessage();
+		} catch (IOException e) {
+			error = "Body read failed at item " + index + ": " + e.getMessage();
+		}
+		if (!chunk.isEmpty()) {
+			writeChunk(chunk, indexes, categories).forEach(report::add);
+		}
+		
+		long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+		return new BatchResultDTO(report.received, report.created, report.sortedRejects(), report.truncated, elapsedMillis, error);
+	}
+
+	/*
+	 * Planilha CSV com cabeçalho name,description,price,imgUrl,date,categories (nomes separados por ;)
+	 * lida linha a linha do Reader: só um bloco de chunk-size linhas fica em memória, nunca o arquivo,
+	 * e do relatório só as primeiras max-rejects rejeitadas
+	 */
+	public CsvImportResultDTO importCsv(Reader reader) {
+		long start = System.nanoTime();
+		Map<Long, Category> categories = categoriesById();
+		Map<String, Category> categoriesByName = categories.values().stream()
+				.collect(Collectors.toMap(category -> normalize(category.getName()), Function.identity(), (first, other) -> first));
+		
+		Report report = new Report(maxRejects);
+		List<ProductDTO> chunk = new ArrayList<>(chunkSize);
+		List<Integer> indexes = new ArrayList<>(chunkSize);
+		String error = null;
+		int row = 0;
+		try (MappingIterator<Map<String, String>> rows = CSV_MAPPER.readerForMapOf(String.class).with(CSV_SCHEMA).readValues(reader)) {
+			while (rows.hasNextValue()) {
+				row++;
+				List<String> errors = new ArrayList<>();
+				try {
+					ProductDTO dto = toDTO(rows.nextValue(), categoriesByName, errors);
+					if (errors.isEmpty()) {
+						chunk.add(dto);
+						indexes.add(row);
+					}
+				} catch (JsonMappingException e) {
+					errors.add(e.getOriginalMessage());
+				}
+				if (!errors.isEmpty()) {
+					report.add(BatchItemResultDTO.rejected(row, errors));
+				}
+				if (chunk.size() == chunkSize) {
+					writeChunk(chunk, indexes, categories).forEach(report::add);
+					chunk.clear();
+					indexes.clear();
+				}
+			}
+		} catch (JsonProcessingException e) {
+			error = "Malformed CSV at row " + row + ": " + e.getOriginalMessage();
+		} catch (IOException e) {
+			error = "Body read failed at row " + row + ": " + e.getMessage();
+		}
+		if (!chunk.isEmpty()) {
+			writeChunk(chunk, indexes, categories).forEach(report::add);
+		}
+		
+		long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+		return new CsvImportResultDTO(report.received, report.created, report.sortedRejects(), report.truncated, elapsedMillis, error);
+	}
+
+	// categorias do snapshot em memória, sem consulta | o INSERT na tb_product_category só usa o id
+	private Map<Long, Category> categoriesById() {
+		return catalog.findAll().stream()
+				.collect(Collectors.toMap(CategoryDTO::getId, category -> new Category(category.getId(), category.getName())));
+	}
+
+	private List<BatchItemResultDTO> writeChunk(List<ProductDTO> chunk, List<Integer> indexes, Map<Long, Category> categories) {
+		List<BatchItemResultDTO> results = new ArrayList<>(chunk.size());
+		List<Product> products = new ArrayList<>(chunk.size());
+		List<Integer> productIndexes = new ArrayList<>(chunk.size());
+		for (int i = 0; i < chunk.size(); i++) {
+			ProductDTO dto = chunk.get(i);
+			List<String> errors = validate(dto, categories);
+			if (!errors.isEmpty()) {
+				results.add(BatchItemResultDTO.rejected(indexes.get(i), errors));
+				continue;
+			}
+			Product entity = new Product(null, dto.getName(), dto.getDescription(), dto.getPrice(), dto.getImgUrl(), dto.getDate());
+			dto.getCategories().forEach(category -> entity.getCategories().add(categories.get(category.getId())));
+			products.add(entity);
+			productIndexes.add(indexes.get(i));
+		}
+		if (products.isEmpty()) {
+			return results;
+		}
+		
+		try {
+			transactionTemplate.executeWithoutResult(status -> {
+				repository.insertBatch(products);
+				eventPublisher.publishEvent(ProductsImportedEvent.of(products));						// 1 evento por bloco: caches e índices após o commit
+			});
+			for (int i = 0; i < products.size(); i++) {
+				results.add(BatchItemResultDTO.created(productIndexes.get(i), products.get(i).getId()));
+			}
+		} catch (DataAccessException e) {
+			List<String> errors = List.of("Chunk rolled back: " + e.getMostSpecificCause().getMessage());
+			productIndexes.forEach(index -> results.add(BatchItemResultDTO.rejected(index, errors)));
+		}
+		return results;
+	}
+
+	// as mesmas regras do @Valid do POST /products + categorias existentes (sem o FK estourar no meio do bloco)
+	private List<String> validate(ProductDTO dto, Map<Long, Category> categories) {
+		List<String> errors = new ArrayList<>();
+		for (ConstraintViolation<ProductDTO> violation : validator.validate(dto)) {
+			errors.add(violation.getPropertyPath() + ": " + violation.getMessage());
+		}
+		for (CategoryDTO category : dto.getCategories()) {
+			if (category.getId() == null || !categories.containsKey(category.getId())) {
+				errors.add("categories: Category not found: " + category.getId());
+			}
+		}
+		return errors;
+	}
+
+	// linha do CSV -> ProductDTO | o que não converte (preço, data, categoria desconhecida) vai para errors
+	private ProductDTO toDTO(Map<String, String> row, Map<String, Category> categoriesByName, List<String> errors) {
+		ProductDTO dto = new ProductDTO();
+		dto.setName(row.get("name"));
+		dto.setDescription(row.get("description"));
+		dto.setImgUrl(emptyToNull(row.get("imgUrl")));
+		
+		String price = emptyToNull(row.get("price"));
+		if (price != null) {
+			try {
+				dto.setPrice(Double.valueOf(price));
+			} catch (NumberFormatException e) {
+				errors.add("price: Not a number: " + price);
+			}
+		}
+		String date = emptyToNull(row.get("date"));
+		if (date != null) {
+			try {
+				dto.setDate(Instant.parse(date));
+			} catch (DateTimeParseException e) {
+				errors.add("date: Expected ISO-8601 instant (2020-07-13T20:50:07Z): " + date);
+			}
+		}
+		String names = emptyToNull(row.get("categories"));
+		if (names != null) {
+			for (String name : names.split(CATEGORY_SEPARATOR)) {
+				if (name.isBlank()) {
+					continue;
+				}
+				Category category = categoriesByName.get(normalize(name));
+				if (category == null) {
+					errors.add("categories: Category not found: " + name.trim());
+				} else {
+					dto.getCategories().add(new CategoryDTO(category.getId(), category.getName()));
+				}
+			}
+		}
+		return dto;
+	}
+
+	private static String emptyToNull(String value) {
+		return (value == null || value.isBlank()) ? null : value.trim();
+	}
+
+	private static String normalize(String name) {
+		return name.trim().toLowerCase(Locale.ROOT);
+	}
+
+	// contagens do corpo / arquivo inteiro + só os primeiros rejeitados (memória limitada)
+	private static class Report {
+
+		private final int maxRejects;
+		private final List<BatchItemResultDTO> rejects = new ArrayList<>();
+		private long received;
+		private long created;
+		private boolean truncated;
+
+		Report(int maxRejects) {
+			this.maxRejects = maxRejects;
+		}
+
+		void add(BatchItemResultDTO item) {
+			received++;
+			if (BatchItemResultDTO.CREATED.equals(item.getStatus())) {
+				created++;
+			} else if (rejects.size() < maxRejects) {
+				rejects.add(item);
+			} else {
+				truncated = true;
+			}
+		}
+
+		// os blocos terminam fora de ordem em relação aos rejeitados na leitura
+		List<BatchItemResultDTO> sortedRejects() {
+			rejects.sort(Comparator.comparingInt(BatchItemResultDTO::getIndex));
+			return rejects;
+		}
+	}
+}
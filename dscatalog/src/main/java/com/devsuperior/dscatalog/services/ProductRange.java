@@ -0,0 +1,119 @@
+package com.devsuperior.dscatalog.services;
+
+import java.time.Instant;
+import java.util.Objects;
+
+import com.devsuperior.dscatalog.services.exceptions.BadRequestException;
+
+/**
+ * Faixas de preço (minPrice/maxPrice) e de data (from/to) da listagem de produtos.
+ * Limites null ficam abertos; os dois limites são inclusivos.
+ */
+public final class ProductRange {
+
+	// limites usados no JPQL quando um lado está aberto (o PostgreSQL não aceita ":param IS NULL" sem tipo)
+	private static final Instant MIN_DATE = Instant.parse("0001-01-01T00:00:00Z");
+	private static final Instant MAX_DATE = Instant.parse("9999-12-31T23:59:59Z");
+
+	private static final ProductRange NONE = new ProductRange(null, null, null, null);
+
+	private final Double minPrice;
+	private final Double maxPrice;
+	private final Instant from;
+	private final Instant to;
+
+	private ProductRange(Double minPrice, Double maxPrice, Instant from, Instant to) {
+		this.minPrice = minPrice;
+		this.maxPrice = maxPrice;
+		this.from = from;
+		this.to = to;
+	}
+
+	public static ProductRange none() {
+		return NONE;
+	}
+
+	public static ProductRange of(Double minPrice, Double maxPrice, Instant from, Instant to) {
+		if ((minPrice != null && minPrice.isNaN()) || (maxPrice != null && maxPrice.isNaN())) {
+			throw new BadRequestException("Invalid price range");
+		}
+		if (minPrice != null && maxPrice != null && minPrice > maxPrice) {
+			throw new BadRequestException("minPrice must not be greater than maxPrice");
+		}
+		if (from != null && to != null && from.isAfter(to)) {
+			throw new BadRequestException("from must not be after to");
+		}
+		if (minPrice == null && maxPrice == null && from == null && to == null) {
+			return NONE;
+		}
+		return new ProductRange(minPrice, maxPrice, from, to);
+	}
+
+	public boolean isEmpty() {
+		return !isPriceFiltered() && !isDateFiltered();
+	}
+
+	public boolean isPriceFiltered() {
+		return minPrice != null || maxPrice != null;
+	}
+
+	public boolean isDateFiltered() {
+		return from != null || to != null;
+	}
+
+	public Double getMinPrice() {
+		return minPrice;
+	}
+
+	public Double getMaxPrice() {
+		return maxPrice;
+	}
+
+	public Instant getFrom() {
+		return from;
+	}
+
+	public Instant getTo() {
+		return to;
+	}
+
+	// os getters abaixo nunca retornam null (limites abertos viram os extremos), para o JPQL estático
+	public double getPriceLower() {
+		return (minPrice == null) ? -Double.MAX_VALUE : minPrice;
+	}
+
+	public double getPriceUpper() {
+		return (maxPrice == null) ? Double.MAX_VALUE : maxPrice;
+	}
+
+	public Instant getDateLower() {
+		return (from == null) ? MIN_DATE : from;
+	}
+
+	public Instant getDateUpper() {
+		return (to == null) ? MAX_DATE : to;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof ProductRange)) {
+			return false;
+		}
+		ProductRange other = (ProductRange) obj;
+		return Objects.equals(minPrice, other.minPrice) && Objects.equals(maxPrice, other.maxPrice)
+				&& Objects.equals(from, other.from) && Objects.equals(to, other.to);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(minPrice, maxPrice, from, to);
+	}
+
+	// chave estável para caches
+	public String key() {
+		return minPrice + ".." + maxPrice + "|" + from + ".." + to;
+	}
+}
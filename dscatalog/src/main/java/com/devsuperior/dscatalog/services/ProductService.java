@@ -1,52 +1,232 @@
 package com.devsuperior.dscatalog.services;
 
-import java.util.Arrays;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import javax.persistence.EntityManager;
 import javax.persistence.EntityNotFoundException;
+import javax.persistence.PersistenceContext;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort.Direction;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.devsuperior.dscatalog.components.CatalogByIdCache;
+import com.devsuperior.dscatalog.components.CategoryCatalog;
+import com.devsuperior.dscatalog.components.CategoryProductIndex;
+import com.devsuperior.dscatalog.components.IntBitmap;
+import com.devsuperior.dscatalog.components.ProductCountCache;
+import com.devsuperior.dscatalog.components.ProductNameIndex;
+import com.devsuperior.dscatalog.components.ProductPageCache;
+import com.devsuperior.dscatalog.components.ProductRangeIndex;
 import com.devsuperior.dscatalog.dto.CategoryDTO;
+import com.devsuperior.dscatalog.dto.CategoryFacetDTO;
+import com.devsuperior.dscatalog.dto.CursorPageDTO;
+import com.devsuperior.dscatalog.dto.FacetedPageDTO;
+import com.devsuperior.dscatalog.dto.PriceUpdateDTO;
+import com.devsuperior.dscatalog.dto.PriceUpdateResultDTO;
 import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.dto.ProductVersionDTO;
+import com.devsuperior.dscatalog.dto.ProductListRow;
 import com.devsuperior.dscatalog.entities.Category;
 import com.devsuperior.dscatalog.entities.Product;
 import com.devsuperior.dscatalog.repository.CategoryRepository;
+import com.devsuperior.dscatalog.repository.KeysetCursor;
 import com.devsuperior.dscatalog.repository.ProductRepository;
+import com.devsuperior.dscatalog.services.events.ProductChangedEvent;
+import com.devsuperior.dscatalog.services.events.ProductSnapshot;
+import com.devsuperior.dscatalog.services.events.ProductsRepricedEvent;
+import com.devsuperior.dscatalog.services.exceptions.BadRequestException;
 import com.devsuperior.dscatalog.services.exceptions.DatabaseException;
 import com.devsuperior.dscatalog.services.exceptions.ResourceNotFoundException;
 
 @Service
 public class ProductService {
 	
+	// campos aceitos no ?fields= (sparse fieldsets)
+	public static final List<String> FIELDS = List.of("id", "name", "description", "price", "imgUrl", "date", "categories");
+	
+	private static final int MAX_INDEXED_IDS = 1000;													// limite de ids passados no IN
+	
 	@Autowired
 	private ProductRepository repository;
 	
 	@Autowired
 	private CategoryRepository categoryRepository;
 	
+	@Autowired
+	private CategoryCatalog catalog;
+	
+	@Autowired
+	private ProductNameIndex nameIndex;
+	
+	@Autowired
+	private CategoryProductIndex categoryIndex;
+	
+	@Autowired
+	private ProductRangeIndex rangeIndex;
+	
+	@Autowired
+	private ProductCountCache countCache;
+	
+	@Autowired
+	private ProductPageCache pageCache;
+	
+	@Autowired
+	private CatalogByIdCache byIdCache;
+	
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+	
+	@PersistenceContext
+	private EntityManager entityManager;
+	
 	@Transactional(readOnly = true) 																			// readOnly evita o lock no BD | não trava o BD pra fazer essa query
-	public Page<ProductDTO> findAllPaged(Long categoryId, String name, PageRequest pageRequest) {
-		List<Category> categories = (categoryId == 0) ? null : 
-			Arrays.asList(categoryRepository.getOne(categoryId));
+	public Page<ProductDTO> findAllPaged(CategoryFilter categories, String name, ProductRange range, PageRequest pageRequest) {
+		Page<ProductDTO> cached = pageCache.get(categories, name, range, pageRequest);
+		if (cached != null) {
+			return cached;
+		}
+		long version = pageCache.version();																// antes de ler o banco
+		
+		Page<Long> ids = findProductIds(categories, name.trim(), range, pageRequest); 								// 1ª fase: ids da página
+		Map<Long, ProductDTO> products = findListItems(ids.getContent());									// 2ª fase: 1 consulta com as categorias
+		
+		Page<ProductDTO> page = ids.map(products::get);													// mantém a ordem da 1ª fase
+		pageCache.put(categories, name, range, pageRequest, page, version);
+		return page;
+	}
+	
+	// ?fields=: mesma 1ª fase | a 2ª fase seleciona só as colunas pedidas e só junta as categorias se foram pedidas
+	@Transactional(readOnly = true)
+	public Page<Map<String, Object>> findAllPaged(CategoryFilter categories, String name, ProductRange range, PageRequest pageRequest, 
+			FieldSet fields) {
+		Page<Long> ids = findProductIds(categories, name.trim(), range, pageRequest);
+		Map<Long, Map<String, Object>> items = findFields(ids.getContent(), fields);
+		return ids.map(items::get);
+	}
+	
+	// igual ao findAllPaged, mas sem o total de elementos (nenhum COUNT no banco)
+	@Transactional(readOnly = true)
+	public Slice<ProductDTO> findAllSliced(CategoryFilter categories, String name, ProductRange range, PageRequest pageRequest) {
+		Slice<Long> ids = findProductIdsSlice(resolveFilter(categories, name.trim(), range), pageRequest);
+		Map<Long, ProductDTO> products = findListItems(ids.getContent());
 		
-		Page<Product> list = repository.findProductsWithCategories(categories, name.trim(), pageRequest); 		// Page já é um stream
+		return ids.map(products::get);
+	}
+	
+	// a página e as contagens por categoria numa única requisição
+	@Transactional(readOnly = true)
+	public FacetedPageDTO<ProductDTO> findAllFaceted(CategoryFilter categories, String name, ProductRange range, PageRequest pageRequest) {
+		Page<ProductDTO> page = findAllPaged(categories, name, range, pageRequest);
+		return new FacetedPageDTO<>(page, findFacets(name.trim(), range));
+	}
+	
+	@Transactional(readOnly = true)
+	public CursorPageDTO<ProductDTO> findAllKeyset(CategoryFilter categories, String name, ProductRange range, String cursor, int size, 
+			String orderBy, Direction direction) {
+		if (size <= 0) {
+			throw new BadRequestException("linesPerPage must be greater than zero");
+		}
+		KeysetCursor position = KeysetCursor.decode(cursor, orderBy, direction);
+		ProductFilter filter = resolveFilter(categories, name.trim(), range);
+		List<Long> ids = (filter.ids != null && filter.ids.isEmpty()) ? filter.ids :
+			repository.findProductIdsAfter(filter.categories, filter.minMatches, filter.name, filter.range, filter.ids, position, size + 1);	// +1 para saber se há próxima página
+		
+		boolean hasNext = ids.size() > size;
+		ids = hasNext ? ids.subList(0, size) : ids;
+		Map<Long, ProductDTO> products = findListItems(ids);
 		
-		return list.map(product -> new ProductDTO(product, product.getCategories()));
+		List<ProductDTO> content = new ArrayList<>();
+		ids.forEach(id -> content.add(products.get(id)));
+		
+		String nextCursor = null;
+		if (hasNext) {
+			ProductDTO last = content.get(content.size() - 1);
+			nextCursor = position.after(last.getId(), last.getName()).encode();
+		}
+		return new CursorPageDTO<>(content, nextCursor);
+	}
+	
+	/*
+	 * Exportação completa em ordem de id, a partir de afterId (retomada) | memória constante para qualquer tamanho de catálogo:
+	 * cursor forward-only, categorias carregadas por bloco e contexto de persistência limpo a cada bloco
+	 */
+	@Transactional(readOnly = true)
+	public void exportAfter(Long afterId, Consumer<ProductDTO> consumer) {
+		List<Product> chunk = new ArrayList<>(ProductRepository.EXPORT_FETCH_SIZE);
+		try (Stream<Product> products = repository.streamAllAfter(afterId)) {
+			products.forEach(product -> {
+				chunk.add(product);
+				if (chunk.size() == ProductRepository.EXPORT_FETCH_SIZE) {
+					exportChunk(chunk, consumer);
+				}
+			});
+		}
+		exportChunk(chunk, consumer);
 	}
 	
 	@Transactional(readOnly = true)
+	public Map<String, Object> findById(Long id, FieldSet fields) {
+		Map<String, Object> item = findFields(List.of(id), fields).get(id);
+		if (item == null) {
+			throw new ResourceNotFoundException("Entity Not Found");
+		}
+		return item;
+	}
+	
+	// sem @Transactional: o hit no cache não abre conexão | a carga é 1 consulta com as categorias (fetch join)
 	public ProductDTO findById(Long id) {		
-		Optional<Product> optional = repository.findById(id);
-		Product product = optional.orElseThrow(() -> new ResourceNotFoundException("Entity Not Found"));
-		return new ProductDTO(product, product.getCategories());
+		return byIdCache.product(id, key -> {
+			List<Product> found = repository.findProductsWithCategoriesByIds(List.of(key));
+			Product product = found.stream().findFirst().orElseThrow(() -> new ResourceNotFoundException("Entity Not Found"));
+			ProductDTO dto = new ProductDTO(product, product.getCategories());
+			dto.setCategories(List.copyOf(dto.getCategories()));							// snapshot compartilhado: lista imutável
+			return dto;
+		});
+	}
+	
+	// GET condicional: ETag sem montar o DTO | do CatalogByIdCache se já estiver lá, senão só versão e datas
+	public ProductVersionDTO findVersionById(Long id) {
+		ProductDTO cached = byIdCache.peekProduct(id);
+		if (cached != null) {
+			return new ProductVersionDTO(cached);
+		}
+		List<Object[]> rows = repository.findVersionRowsById(id);
+		if (rows.isEmpty()) {
+			throw new ResourceNotFoundException("Entity Not Found");
+		}
+		Long version = (Long) rows.get(0)[0];
+		Instant lastModified = lastModified((Instant) rows.get(0)[1], (Instant) rows.get(0)[2]);		// mesma regra do ProductDTO
+		for (Object[] row : rows) {
+			Instant category = lastModified((Instant) row[3], (Instant) row[4]);
+			if (category != null && (lastModified == null || category.isAfter(lastModified))) {
+				lastModified = category;
+			}
+		}
+		return new ProductVersionDTO(id, version, lastModified);
+	}
+	
+	// updatedAt, ou createdAt se nunca foi alterado
+	private static Instant lastModified(Instant createdAt, Instant updatedAt) {
+		return (updatedAt != null) ? updatedAt : createdAt;
 	}
 	
 	@Transactional
@@ -54,6 +234,7 @@ public class ProductService {
 		Product entity = new Product();
 		copyDtoToEntity(dto, entity);		
 		entity = repository.save(entity);
+		eventPublisher.publishEvent(ProductChangedEvent.saved(entity));
 		return new ProductDTO(entity);
 	}	
 
@@ -62,17 +243,62 @@ public class ProductService {
 		try {
 			dto.setId(id);
 			Product entity = repository.getOne(dto.getId()); 			// getById é lazy loading?
+			ProductSnapshot before = ProductSnapshot.of(entity);		// estado anterior, para os caches invalidarem só o necessário
 			copyDtoToEntity(dto, entity);
 			entity = repository.save(entity);
+			eventPublisher.publishEvent(ProductChangedEvent.updated(before, entity));
 			return new ProductDTO(entity);
 		} catch(EntityNotFoundException e) {
 			throw new ResourceNotFoundException("Id not Found: " + dto.getId());
 		}
 	}
+	
+	/*
+	 * Reajuste em massa sem carregar produtos: 1 UPDATE set-based (categoria * fator) ou 1 UPDATE ... CASE por bloco de ids
+	 * (lista id -> preço), mais 1 SELECT dos preços novos/ids existentes | transação curta, os locks duram só os UPDATEs
+	 */
+	@Transactional
+	public PriceUpdateResultDTO updatePrices(PriceUpdateDTO dto) {
+		boolean byCategory = dto.getCategoryId() != null || dto.getFactor() != null;
+		boolean byList = dto.getPrices() != null && !dto.getPrices().isEmpty();
+		if (byCategory == byList) {
+			throw new BadRequestException("Inform either categoryId and factor or prices");
+		}
+		
+		Map<Long, Double> prices = new HashMap<>();
+		List<Long> notFound = List.of();
+		if (byCategory) {
+			if (dto.getCategoryId() == null || dto.getFactor() == null) {
+				throw new BadRequestException("categoryId and factor are required together");
+			}
+			if (!catalog.exists(dto.getCategoryId())) {
+				throw new ResourceNotFoundException("Category not found " + dto.getCategoryId());
+			}
+			repository.multiplyPricesByCategory(dto.getCategoryId(), dto.getFactor(), Instant.now());
+			for (Object[] row : repository.findPricesByCategory(dto.getCategoryId())) {
+				prices.put((Long) row[0], (Double) row[1]);
+			}
+		} else {
+			if (dto.getPrices().values().stream().anyMatch(Objects::isNull)) {						// containsValue(null) lança NPE em Map.of
+				throw new BadRequestException("Price required for every id");
+			}
+			repository.updatePrices(dto.getPrices()).forEach(id -> prices.put(id, dto.getPrices().get(id)));
+			notFound = dto.getPrices().keySet().stream()
+					.filter(id -> !prices.containsKey(id))
+					.collect(Collectors.toList());
+		}
+		if (!prices.isEmpty()) {
+			eventPublisher.publishEvent(new ProductsRepricedEvent(prices));					// 1 evento para o lote todo
+		}
+		return new PriceUpdateResultDTO(prices.size(), notFound);
+	}
 																	
 	public void delete(Long id) {													
 		try {		
+			List<Product> before = repository.findProductsWithCategoriesByIds(List.of(id));		// estado anterior, para os caches
 			repository.deleteById(id);
+			eventPublisher.publishEvent(before.isEmpty() ? ProductChangedEvent.deleted(id) : 
+				ProductChangedEvent.deleted(ProductSnapshot.of(before.get(0))));
 		} catch (EmptyResultDataAccessException e) {							// productRepository lança o EmptyResultDataAccessException
 			throw new ResourceNotFoundException("Id not Found " + id);			// productService lança o ResourceNotFoundException 	
 		} catch(DataIntegrityViolationException e) {							// productRepository lança o DataIntegrityViolationException		
@@ -80,6 +306,158 @@ public class ProductService {
 		}
 	}
 	
+	// com o total em cache basta o Slice da página
+	private Page<Long> findProductIds(CategoryFilter categories, String name, ProductRange range, PageRequest pageRequest) {
+		ProductFilter filter = resolveFilter(categories, name, range);
+		Long total = countCache.get(categories, name, range);
+		if (total != null) {
+			Slice<Long> slice = findProductIdsSlice(filter, pageRequest);
+			return new PageImpl<>(slice.getContent(), pageRequest, total);
+		}
+		long countVersion = countCache.version();												// antes do COUNT
+		Page<Long> page = findProductIds(filter, pageRequest);
+		countCache.put(categories, name, range, page.getTotalElements(), countVersion);
+		return page;
+	}
+	
+	private Page<Long> findProductIds(ProductFilter filter, PageRequest pageRequest) {
+		if (filter.ids == null) {
+			return repository.findProductIds(filter.categories, filter.minMatches, filter.name, filter.range, pageRequest);					// JOIN e LIKE no banco
+		}
+		if (filter.ids.isEmpty()) {
+			return Page.empty(pageRequest);
+		}
+		return repository.findProductIdsIn(filter.categories, filter.minMatches, filter.name, filter.range, filter.ids, pageRequest);
+	}
+	
+	private Slice<Long> findProductIdsSlice(ProductFilter filter, PageRequest pageRequest) {
+		if (filter.ids == null) {
+			return repository.findProductIdsSlice(filter.categories, filter.minMatches, filter.name, filter.range, pageRequest);
+		}
+		if (filter.ids.isEmpty()) {
+			return new SliceImpl<>(filter.ids, pageRequest, false);
+		}
+		return repository.findProductIdsInSlice(filter.categories, filter.minMatches, filter.name, filter.range, filter.ids, pageRequest);
+	}
+	
+	// contagem por categoria dos produtos que casam com o nome e as faixas | ignora o filtro de categorias, como o "Livros (132)" da vitrine
+	private List<CategoryFacetDTO> findFacets(String name, ProductRange range) {
+		Map<Long, Long> counts;
+		if (categoryIndex.isReady() && (name.isEmpty() || nameIndex.canSearch(name)) && (range.isEmpty() || rangeIndex.isReady())) {
+			IntBitmap byName = name.isEmpty() ? null : nameIndex.search(name);
+			IntBitmap byRange = range.isEmpty() ? null : rangeIndex.productsIn(range);
+			counts = categoryIndex.countsWithin(and(byName, byRange));									// AND-cardinality por categoria
+		} else {
+			counts = new HashMap<>();
+			for (Object[] row : repository.countProductsByCategory(name, range)) {						// GROUP BY na tb_product_category
+				counts.put((Long) row[0], (Long) row[1]);
+			}
+		}
+		
+		List<CategoryFacetDTO> facets = new ArrayList<>();
+		for (CategoryDTO category : catalog.findAll()) {													// já ordenadas por nome, sem ir ao banco
+			Long count = counts.get(category.getId());
+			if (count != null) {
+				facets.add(new CategoryFacetDTO(category, count));
+			}
+		}
+		return facets;
+	}
+	
+	// resolve nos índices em memória o que der (nome e categoria) | o resto do filtro vai para o banco
+	private ProductFilter resolveFilter(CategoryFilter categories, String name, ProductRange range) {
+		IntBitmap byName = nameIndex.canSearch(name) ? nameIndex.search(name) : null;
+		IntBitmap byCategory = (!categories.isEmpty() && categoryIndex.isReady()) ?
+			categoryIndex.productsOf(categories.getIds(), categories.isMatchAll()) : null;					// AND/OR dos bitmaps
+		IntBitmap byRange = (!range.isEmpty() && rangeIndex.isReady())										// busca binária nas faixas
+				? rangeIndex.productsIn(range, MAX_INDEXED_IDS) : null;									// null se grande: a faixa vai para o SQL
+		
+		IntBitmap candidates = and(and(byName, byCategory), byRange);
+		if (candidates == null || candidates.cardinality() > MAX_INDEXED_IDS) {							// IN muito grande, melhor o JOIN/LIKE
+			return new ProductFilter(categoriesOf(categories), categories.getMinMatches(), name, range, null);
+		}
+		return new ProductFilter((byCategory == null) ? categoriesOf(categories) : null, categories.getMinMatches(),
+				(byName == null) ? name : "", (byRange == null) ? range : ProductRange.none(), toList(candidates));
+	}
+	
+	// null é "sem filtro" e não "conjunto vazio"
+	private static IntBitmap and(IntBitmap a, IntBitmap b) {
+		if (a == null || b == null) {
+			return (a == null) ? b : a;
+		}
+		return (a.cardinality() <= b.cardinality()) ? IntBitmap.and(a, b) : IntBitmap.and(b, a);
+	}
+	
+	private List<Category> categoriesOf(CategoryFilter categories) {
+		if (categories.isEmpty()) {
+			return null;
+		}
+		List<Category> list = new ArrayList<>();
+		categories.getIds().forEach(id -> list.add(categoryRepository.getOne(id)));						// getOne não vai ao banco
+		return list;
+	}
+	
+	private static List<Long> toList(IntBitmap ids) {
+		List<Long> list = new ArrayList<>(ids.cardinality());
+		ids.forEach(id -> list.add((long) id));
+		return list;
+	}
+	
+	// filtro da 1ª fase: ids == null quando nenhum índice ajudou | categories null, name vazio e range vazio já foram resolvidos
+	private static final class ProductFilter {
+		
+		private final List<Category> categories;
+		private final long minMatches;
+		private final String name;
+		private final ProductRange range;
+		private final List<Long> ids;
+		
+		private ProductFilter(List<Category> categories, long minMatches, String name, ProductRange range, List<Long> ids) {
+			this.categories = categories;
+			this.minMatches = minMatches;
+			this.name = name;
+			this.range = range;
+			this.ids = ids;
+		}
+	}
+	
+	private void exportChunk(List<Product> chunk, Consumer<ProductDTO> consumer) {
+		if (chunk.isEmpty()) {
+			return;
+		}
+		List<Long> ids = chunk.stream().map(Product::getId).collect(Collectors.toList());
+		Map<Long, List<CategoryDTO>> categories = new HashMap<>();
+		for (Object[] row : repository.findCategoryNamesByProductIds(ids)) {
+			categories.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add(new CategoryDTO((Long) row[1], (String) row[2]));
+		}
+		for (Product product : chunk) {
+			ProductDTO dto = new ProductDTO(product);
+			categories.getOrDefault(product.getId(), List.of()).forEach(dto::addCategory);
+			consumer.accept(dto);
+		}
+		chunk.clear();
+		entityManager.clear();																	// solta as entidades do bloco já escrito
+	}
+	
+	private Map<Long, Map<String, Object>> findFields(List<Long> ids, FieldSet fields) {
+		List<Object[]> rows = repository.findProductFields(ids, fields.columns("categories"), fields.contains("categories"));
+		return fields.toItems(rows, "categories", CategoryDTO::new);
+	}
+	
+	// projeção sem entidades: nada fica no contexto de persistência | linhas produto x categoria agrupadas por id
+	private Map<Long, ProductDTO> findListItems(List<Long> ids) {
+		Map<Long, ProductDTO> products = new HashMap<>();
+		if (!ids.isEmpty()) {
+			for (ProductListRow row : repository.findProductListRowsByIds(ids)) {
+				ProductDTO dto = products.computeIfAbsent(row.getProductId(), id -> new ProductDTO(row));
+				if (row.getCategoryId() != null) {
+					dto.addCategory(new CategoryDTO(row.getCategoryId(), row.getCategoryName(), row.getCategoryLastModified()));
+				}
+			}
+		}
+		return products;
+	}
+	
 	private void copyDtoToEntity(ProductDTO dto, Product entity) {
 		entity.setName(dto.getName());
 		entity.setDescription(dto.getDescription());
@@ -87,11 +465,22 @@ public class ProductService {
 		entity.setImgUrl(dto.getImgUrl());
 		entity.setPrice(dto.getPrice());
 		
-		entity.getCategories().clear();   // limpar qlq category que possa ter aqui
-		
-		for (CategoryDTO categoryDTO : dto.getCategories()) {
-			Category category = categoryRepository.getOne(categoryDTO.getId());
-			entity.getCategories().add(category);
+		// só a diferença vira DELETE/INSERT na tb_product_category | categorias que continuam não tocam a tabela
+		Set<Long> wanted = dto.getCategories().stream().map(CategoryDTO::getId).collect(Collectors.toSet());
+		if (wanted.contains(null)) {
+			throw new BadRequestException("Category id is required");
+		}
+		entity.getCategories().removeIf(category -> !wanted.contains(category.getId()));
+		Set<Long> current = entity.getCategories().stream().map(Category::getId).collect(Collectors.toSet());
+		List<Long> added = wanted.stream().filter(id -> !current.contains(id)).collect(Collectors.toList());
+		List<Long> unknown = added.stream().filter(id -> !catalog.exists(id)).collect(Collectors.toList());
+		if (!unknown.isEmpty()) {
+			List<Category> found = categoryRepository.findAllById(unknown);								// só o que o snapshot não conhece: 1 consulta
+			if (found.size() != unknown.size()) {
+				found.forEach(category -> unknown.remove(category.getId()));
+				throw new ResourceNotFoundException("Category not found: " + unknown);
+			}
 		}
+		added.forEach(id -> entity.getCategories().add(categoryRepository.getOne(id)));					// getOne não vai ao banco
 	}
 }
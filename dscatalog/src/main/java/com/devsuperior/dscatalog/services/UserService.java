@@ -1,5 +1,7 @@
 package com.devsuperior.dscatalog.services;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import javax.persistence.EntityNotFoundException;
@@ -7,6 +9,7 @@ import javax.persistence.EntityNotFoundException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.data.domain.Page;
@@ -14,7 +17,7 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -26,12 +29,16 @@ import com.devsuperior.dscatalog.entities.Role;
 import com.devsuperior.dscatalog.entities.User;
 import com.devsuperior.dscatalog.repository.RoleRepository;
 import com.devsuperior.dscatalog.repository.UserRepository;
+import com.devsuperior.dscatalog.services.events.UserChangedEvent;
 import com.devsuperior.dscatalog.services.exceptions.DatabaseException;
 import com.devsuperior.dscatalog.services.exceptions.ResourceNotFoundException;
 
 @Service
 public class UserService implements UserDetailsService {
 	
+	// campos aceitos no ?fields= (sparse fieldsets) | a senha nunca é selecionável
+	public static final List<String> FIELDS = List.of("id", "firstName", "lastName", "email", "roles");
+	
 	private static Logger logger = LoggerFactory.getLogger(UserService.class);
 	
 	@Autowired
@@ -41,7 +48,10 @@ public class UserService implements UserDetailsService {
 	private RoleRepository roleRepository;
 	
 	@Autowired
-	private BCryptPasswordEncoder passwordEncoder;
+	private PasswordEncoder passwordEncoder;
+	
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
 	
 	@Transactional(readOnly = true) 									// readOnly evita o lock no BD | não trava o BD pra fazer essa query
 	public Page<UserDTO> findAllPaged(PageRequest pageRequest) {
@@ -50,6 +60,23 @@ public class UserService implements UserDetailsService {
 		return list.map(product -> new UserDTO(product));
 	}
 	
+	// ?fields=: 1ª fase só com os ids, 2ª fase só com as colunas pedidas (roles apenas se pedidos)
+	@Transactional(readOnly = true)
+	public Page<Map<String, Object>> findAllPaged(PageRequest pageRequest, FieldSet fields) {
+		Page<Long> ids = repository.findUserIds(pageRequest);
+		Map<Long, Map<String, Object>> items = findFields(ids.getContent(), fields);
+		return ids.map(items::get);
+	}
+	
+	@Transactional(readOnly = true)
+	public Map<String, Object> findById(Long id, FieldSet fields) {
+		Map<String, Object> item = findFields(List.of(id), fields).get(id);
+		if (item == null) {
+			throw new ResourceNotFoundException("Entity Not Found");
+		}
+		return item;
+	}
+	
 	@Transactional(readOnly = true)
 	public UserDTO findById(Long id) {		
 		Optional<User> optional = repository.findById(id);
@@ -70,8 +97,10 @@ public class UserService implements UserDetailsService {
 	public UserDTO update(UserUpdateDTO dto) {
 		try {
 			User entity = repository.getOne(dto.getId()); 				// getById é lazy loading?
+			String previousEmail = entity.getEmail();
 			copyDtoToEntity(dto, entity);
 			entity = repository.save(entity);
+			eventPublisher.publishEvent(new UserChangedEvent(entity.getId(), previousEmail));	// VerifiedCredentialCache após o commit
 			return new UserDTO(entity);
 		} catch(EntityNotFoundException e) {
 			throw new ResourceNotFoundException("Id not Found: " + dto.getId());
@@ -101,6 +130,12 @@ public class UserService implements UserDetailsService {
 		}
 	}
 
+	// re-hash no custo configurado, chamado em segundo plano após um login (RehashingAuthenticationProvider)
+	@Transactional
+	public boolean updatePasswordHash(Long id, String oldHash, String newHash) {
+		return repository.updatePasswordHash(id, oldHash, newHash) == 1;
+	}
+
 	@Override
 	public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
 		User user = repository.findByEmail(username);
@@ -111,4 +146,9 @@ public class UserService implements UserDetailsService {
 		logger.info("User found: " + username);
 		return user;
 	}
+	
+	private Map<Long, Map<String, Object>> findFields(List<Long> ids, FieldSet fields) {
+		List<Object[]> rows = repository.findUserFields(ids, fields.columns("roles"), fields.contains("roles"));
+		return fields.toItems(rows, "roles", RoleDTO::new);
+	}
 }
@@ -0,0 +1,21 @@
+package com.devsuperior.dscatalog.services.events;
+
+// publicado pelo CategoryService no update/delete | os listeners rodam após o commit
+public class CategoryChangedEvent {
+
+	private final Long categoryId;
+	private final boolean deleted;
+
+	public CategoryChangedEvent(Long categoryId, boolean deleted) {
+		this.categoryId = categoryId;
+		this.deleted = deleted;
+	}
+
+	public Long getCategoryId() {
+		return categoryId;
+	}
+
+	public boolean isDeleted() {
+		return deleted;
+	}
+}
@@ -0,0 +1,69 @@
+package com.devsuperior.dscatalog.services.events;
+
+import java.time.Instant;
+import java.util.Set;
+
+import com.devsuperior.dscatalog.entities.Product;
+
+// publicado pelo ProductService a cada insert/update/delete | os listeners rodam após o commit
+public class ProductChangedEvent {
+
+	private final Long productId;
+	private final ProductSnapshot before;											// null no insert (ou se não foi lido)
+	private final ProductSnapshot after;											// null no delete
+
+	public ProductChangedEvent(Long productId, ProductSnapshot before, ProductSnapshot after) {
+		this.productId = productId;
+		this.before = before;
+		this.after = after;
+	}
+
+	public static ProductChangedEvent saved(Product entity) {
+		return new ProductChangedEvent(entity.getId(), null, ProductSnapshot.of(entity));
+	}
+
+	public static ProductChangedEvent updated(ProductSnapshot before, Product entity) {
+		return new ProductChangedEvent(entity.getId(), before, ProductSnapshot.of(entity));
+	}
+
+	public static ProductChangedEvent deleted(Long productId) {
+		return new ProductChangedEvent(productId, null, null);
+	}
+
+	public static ProductChangedEvent deleted(ProductSnapshot before) {
+		return new ProductChangedEvent(before.getId(), before, null);
+	}
+
+	public Long getProductId() {
+		return productId;
+	}
+
+	public ProductSnapshot getBefore() {
+		return before;
+	}
+
+	public ProductSnapshot getAfter() {
+		return after;
+	}
+
+	// os getters abaixo são do estado depois da escrita
+	public String getName() {
+		return (after == null) ? null : after.getName();
+	}
+
+	public Double getPrice() {
+		return (after == null) ? null : after.getPrice();
+	}
+
+	public Instant getDate() {
+		return (after == null) ? null : after.getDate();
+	}
+
+	public Set<Long> getCategoryIds() {
+		return (after == null) ? Set.of() : after.getCategoryIds();
+	}
+
+	public boolean isDeleted() {
+		return after == null;
+	}
+}
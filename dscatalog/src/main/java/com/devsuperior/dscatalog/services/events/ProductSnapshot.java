@@ -0,0 +1,53 @@
+package com.devsuperior.dscatalog.services.events;
+
+import java.time.Instant;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.devsuperior.dscatalog.entities.Category;
+import com.devsuperior.dscatalog.entities.Product;
+
+// estado de um produto num instante (antes ou depois de uma escrita), sem referência à entidade
+public class ProductSnapshot {
+
+	private final Long id;
+	private final String name;
+	private final Double price;
+	private final Instant date;
+	private final Set<Long> categoryIds;
+
+	public ProductSnapshot(Long id, String name, Double price, Instant date, Set<Long> categoryIds) {
+		this.id = id;
+		this.name = name;
+		this.price = price;
+		this.date = date;
+		this.categoryIds = categoryIds;
+	}
+
+	public static ProductSnapshot of(Product entity) {
+		Set<Long> categoryIds = entity.getCategories().stream()
+				.map(Category::getId)																// getId não inicializa o proxy do getOne
+				.collect(Collectors.toUnmodifiableSet());
+		return new ProductSnapshot(entity.getId(), entity.getName(), entity.getPrice(), entity.getDate(), categoryIds);
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public Double getPrice() {
+		return price;
+	}
+
+	public Instant getDate() {
+		return date;
+	}
+
+	public Set<Long> getCategoryIds() {
+		return categoryIds;
+	}
+}
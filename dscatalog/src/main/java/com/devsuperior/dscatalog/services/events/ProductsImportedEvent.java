@@ -0,0 +1,29 @@
+package com.devsuperior.dscatalog.services.events;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.devsuperior.dscatalog.entities.Product;
+
+// publicado pelo ProductBatchService a cada bloco gravado: um evento para todos os produtos novos do bloco
+public class ProductsImportedEvent {
+
+	private final List<ProductSnapshot> products;
+
+	public ProductsImportedEvent(List<ProductSnapshot> products) {
+		this.products = List.copyOf(products);
+	}
+
+	public static ProductsImportedEvent of(List<Product> entities) {
+		return new ProductsImportedEvent(entities.stream().map(ProductSnapshot::of).collect(Collectors.toList()));
+	}
+
+	public List<ProductSnapshot> getProducts() {
+		return products;
+	}
+
+	public Set<Long> getProductIds() {
+		return products.stream().map(ProductSnapshot::getId).collect(Collectors.toSet());
+	}
+}
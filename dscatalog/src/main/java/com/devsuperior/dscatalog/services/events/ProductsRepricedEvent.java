@@ -0,0 +1,24 @@
+package com.devsuperior.dscatalog.services.events;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+// publicado pelo ProductService no reajuste em massa: um evento para todos os produtos | só o preço mudou
+public class ProductsRepricedEvent {
+
+	private final Map<Long, Double> prices;										// id -> preço novo (null se o produto não tem preço)
+
+	public ProductsRepricedEvent(Map<Long, Double> prices) {
+		this.prices = Collections.unmodifiableMap(new HashMap<>(prices));
+	}
+
+	public Map<Long, Double> getPrices() {
+		return prices;
+	}
+
+	public Set<Long> getProductIds() {
+		return prices.keySet();
+	}
+}
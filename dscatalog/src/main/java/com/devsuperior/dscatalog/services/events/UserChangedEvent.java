@@ -0,0 +1,21 @@
+package com.devsuperior.dscatalog.services.events;
+
+// publicado pelo UserService no update | os listeners rodam após o commit
+public class UserChangedEvent {
+
+	private final Long userId;
+	private final String previousEmail;											// e-mail antes da escrita (o login usado até aqui)
+
+	public UserChangedEvent(Long userId, String previousEmail) {
+		this.userId = userId;
+		this.previousEmail = previousEmail;
+	}
+
+	public Long getUserId() {
+		return userId;
+	}
+
+	public String getPreviousEmail() {
+		return previousEmail;
+	}
+}
@@ -0,0 +1,34 @@
+package com.devsuperior.dscatalog.services.exceptions;
+
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.oauth2.common.exceptions.OAuth2Exception;
+
+// fila do BCrypt cheia: 503 | AuthenticationException para os filtros do Spring Security tratarem como falha de autenticação
+public class PasswordHashingBusyException extends AuthenticationServiceException {
+
+	private static final long serialVersionUID = 1L;
+
+	public PasswordHashingBusyException(String message) {
+		super(message, new Unavailable(message));									// no /oauth/token o tradutor acha o OAuth2Exception na causa
+	}
+
+	// erro OAuth2 temporarily_unavailable com HTTP 503
+	public static class Unavailable extends OAuth2Exception {
+
+		private static final long serialVersionUID = 1L;
+
+		public Unavailable(String message) {
+			super(message);
+		}
+
+		@Override
+		public String getOAuth2ErrorCode() {
+			return "temporarily_unavailable";
+		}
+
+		@Override
+		public int getHttpErrorCode() {
+			return 503;
+		}
+	}
+}
@@ -0,0 +1,177 @@
+package com.devsuperior.dscatalog.tests.components;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.oauth2.common.exceptions.OAuth2Exception;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.devsuperior.dscatalog.components.BoundedPasswordEncoder;
+import com.devsuperior.dscatalog.services.exceptions.PasswordHashingBusyException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class BoundedPasswordEncoderTests {
+
+	private BoundedPasswordEncoder passwordEncoder;
+	private SimpleMeterRegistry registry;
+
+	@BeforeEach
+	void setup() {
+		passwordEncoder = new BoundedPasswordEncoder();
+		ReflectionTestUtils.setField(passwordEncoder, "strength", 4);						// custo mínimo: testes rápidos
+		ReflectionTestUtils.setField(passwordEncoder, "threads", 1);
+		ReflectionTestUtils.setField(passwordEncoder, "queueCapacity", 1);
+		ReflectionTestUtils.setField(passwordEncoder, "maxWaitMillis", 10_000L);
+		ReflectionTestUtils.setField(passwordEncoder, "rehashThreads", 1);
+		ReflectionTestUtils.setField(passwordEncoder, "rehashQueueCapacity", 1);
+		passwordEncoder.init();
+		registry = new SimpleMeterRegistry();
+		passwordEncoder.bindTo(registry);
+	}
+
+	@AfterEach
+	void tearDown() {
+		passwordEncoder.shutdown();
+	}
+
+	@Test
+	public void matches_ShouldVerifyOnPoolAndRecordLatency() {
+		String hash = passwordEncoder.encode("123456");
+
+		assertTrue(passwordEncoder.matches("123456", hash));
+		assertFalse(passwordEncoder.matches("654321", hash));
+		assertEquals(2, registry.get("password.hashing.latency").tag("operation", "matches").timer().count());
+	}
+
+	@Test
+	public void encode_ShouldRejectFast_whenPoolAndQueueAreFull() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		CharSequence slow = new BlockingPassword("123456", release);
+		ExecutorService logins = Executors.newFixedThreadPool(2);
+		try {
+			Future<String> running = logins.submit(() -> passwordEncoder.encode(slow));
+			Future<String> queued = logins.submit(() -> passwordEncoder.encode(slow));
+			long deadline = System.currentTimeMillis() + 5_000;
+			while (registry.get("password.hashing.queue").gauge().value() < 1 && System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);															// 1 thread ocupada + 1 na fila
+			}
+
+			assertThrows(PasswordHashingBusyException.class, () -> passwordEncoder.encode("123456"));
+			assertEquals(1, registry.get("password.hashing.rejected").counter().count());
+
+			release.countDown();
+			String first = running.get(5, TimeUnit.SECONDS);
+			String second = queued.get(5, TimeUnit.SECONDS);								// a fila só esvazia quando a thread pega o 2º
+			assertTrue(passwordEncoder.matches("123456", first));
+			assertTrue(passwordEncoder.matches("123456", second));
+		} finally {
+			logins.shutdownNow();
+		}
+	}
+
+	@Test
+	public void upgradeEncoding_ShouldFlagHashesWithOtherStrength_upOrDown() {
+		assertFalse(passwordEncoder.upgradeEncoding(passwordEncoder.encode("123456")));
+		assertTrue(passwordEncoder.upgradeEncoding(new BCryptPasswordEncoder(5).encode("123456")));
+		assertTrue(passwordEncoder.upgradeEncoding("$2a$10$eACCYoNOHEqXve8aIWT8Nu3PkMXWBaOxJ9aORUYzfMQCbVBIhZ8tG"));	// data.sql
+		assertFalse(passwordEncoder.upgradeEncoding("not-a-bcrypt-hash"));
+	}
+
+	@Test
+	public void encodeLater_ShouldHashOnPoolWithConfiguredStrength() throws Exception {
+		CompletableFuture<String> hash = new CompletableFuture<>();
+
+		assertTrue(passwordEncoder.encodeLater("123456", hash::complete));
+
+		String encoded = hash.get(5, TimeUnit.SECONDS);
+		assertTrue(encoded.startsWith("$2a$04$"));
+		assertTrue(passwordEncoder.matches("123456", encoded));
+	}
+
+	@Test
+	public void encodeLater_ShouldDropAndCount_whenRehashPoolIsFull_withoutTakingLoginCapacity() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		CharSequence slow = new BlockingPassword("123456", release);
+		CompletableFuture<String> running = new CompletableFuture<>();
+		CompletableFuture<String> queued = new CompletableFuture<>();
+		try {
+			assertTrue(passwordEncoder.encodeLater(slow, running::complete));
+			long deadline = System.currentTimeMillis() + 5_000;
+			while (registry.get("password.hashing.rehash.queue").gauge().value() > 0 && System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);															// a thread de rehash pegou o 1º
+			}
+			assertTrue(passwordEncoder.encodeLater(slow, queued::complete));
+
+			assertFalse(passwordEncoder.encodeLater("123456", hash -> { }));
+			assertEquals(1, registry.get("password.hashing.rehash.dropped").counter().count());
+			assertTrue(passwordEncoder.matches("123456", passwordEncoder.encode("123456")));		// o pool dos logins continua livre
+			assertEquals(0, registry.get("password.hashing.rejected").counter().count());
+		} finally {
+			release.countDown();
+		}
+		assertTrue(passwordEncoder.matches("123456", running.get(5, TimeUnit.SECONDS)));
+		assertTrue(passwordEncoder.matches("123456", queued.get(5, TimeUnit.SECONDS)));
+	}
+
+	@Test
+	public void busyException_ShouldCarryOAuth2ServiceUnavailable() {
+		PasswordHashingBusyException e = new PasswordHashingBusyException("busy");
+
+		OAuth2Exception cause = assertThrows(OAuth2Exception.class, () -> {
+			throw e.getCause();
+		});
+		assertEquals(503, cause.getHttpErrorCode());
+		assertEquals("temporarily_unavailable", cause.getOAuth2ErrorCode());
+	}
+
+	// senha cujo toString (chamado pelo BCrypt já na thread do pool) só volta quando o teste liberar
+	private static class BlockingPassword implements CharSequence {
+
+		private final String value;
+		private final CountDownLatch release;
+
+		private BlockingPassword(String value, CountDownLatch release) {
+			this.value = value;
+			this.release = release;
+		}
+
+		@Override
+		public String toString() {
+			try {
+				release.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return value;
+		}
+
+		@Override
+		public int length() {
+			return value.length();
+		}
+
+		@Override
+		public char charAt(int index) {
+			return value.charAt(index);
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			return value.subSequence(start, end);
+		}
+	}
+}
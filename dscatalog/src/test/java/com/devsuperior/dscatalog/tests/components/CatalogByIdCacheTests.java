@@ -0,0 +1,103 @@
+package com.devsuperior.dscatalog.tests.components;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.devsuperior.dscatalog.components.CatalogByIdCache;
+import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.services.events.CategoryChangedEvent;
+import com.devsuperior.dscatalog.services.events.ProductChangedEvent;
+import com.devsuperior.dscatalog.services.exceptions.ResourceNotFoundException;
+import com.devsuperior.dscatalog.tests.factory.ProductFactory;
+
+public class CatalogByIdCacheTests {
+
+	private CatalogByIdCache byIdCache;
+	private AtomicInteger loads;
+
+	@BeforeEach
+	void setup() {
+		byIdCache = new CatalogByIdCache();
+		ReflectionTestUtils.setField(byIdCache, "ttlSeconds", 60L);
+		ReflectionTestUtils.setField(byIdCache, "maxSize", 100L);
+		byIdCache.init();
+		loads = new AtomicInteger();
+	}
+
+	@Test
+	public void product_ShouldLoadOnce_whenMissesAreConcurrent() throws Exception {
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<ProductDTO>> results = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				results.add(executor.submit(() -> {
+					start.await();
+					return byIdCache.product(1L, this::slowLoad);
+				}));
+			}
+			start.countDown();
+			ProductDTO first = results.get(0).get(5, TimeUnit.SECONDS);
+			for (Future<ProductDTO> result : results) {
+				assertSame(first, result.get(5, TimeUnit.SECONDS));
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		assertEquals(1, loads.get());
+	}
+
+	@Test
+	public void product_ShouldNotCacheFailure_whenLoadThrows() {
+		assertThrows(ResourceNotFoundException.class, () -> byIdCache.product(1L, id -> {
+			throw new ResourceNotFoundException("Entity Not Found");
+		}));
+
+		byIdCache.product(1L, this::slowLoad);
+
+		assertEquals(1, loads.get());
+	}
+
+	@Test
+	public void onProductChanged_ShouldReload_whenProductWasWritten() {
+		byIdCache.product(1L, this::slowLoad);
+		byIdCache.onProductChanged(ProductChangedEvent.deleted(1L));
+		byIdCache.product(1L, this::slowLoad);
+
+		assertEquals(2, loads.get());
+	}
+
+	@Test
+	public void onCategoryChanged_ShouldEvictProductsShowingIt() {
+		byIdCache.product(1L, this::slowLoad);											// produto da categoria 1
+
+		byIdCache.onCategoryChanged(new CategoryChangedEvent(1L, false));
+
+		byIdCache.product(1L, this::slowLoad);
+		assertEquals(2, loads.get());
+	}
+
+	private ProductDTO slowLoad(Long id) {
+		loads.incrementAndGet();
+		try {
+			Thread.sleep(50);																// segura os outros misses na mesma carga
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return ProductFactory.createProductDTO(id);
+	}
+}
@@ -0,0 +1,120 @@
+package com.devsuperior.dscatalog.tests.components;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.devsuperior.dscatalog.components.CategoryCatalog;
+import com.devsuperior.dscatalog.dto.CategoryDTO;
+import com.devsuperior.dscatalog.entities.Category;
+import com.devsuperior.dscatalog.repository.CategoryRepository;
+import com.devsuperior.dscatalog.services.events.CategoryChangedEvent;
+import com.devsuperior.dscatalog.services.exceptions.BadRequestException;
+
+@ExtendWith(SpringExtension.class)
+public class CategoryCatalogTests {
+
+	@InjectMocks
+	private CategoryCatalog catalog;
+
+	@Mock
+	private CategoryRepository repository;
+
+	@BeforeEach
+	void setup() {
+		when(repository.findAll(any(Sort.class))).thenReturn(List.of(						// já vem ordenado por nome
+				new Category(3L, "Computadores"),
+				new Category(1L, "Eletrônicos"),
+				new Category(2L, "Livros")));
+	}
+
+	@Test
+	public void get_ShouldLoadOnce_andServeFromSnapshot() {
+		assertEquals("Livros", catalog.get(2L).getName());
+		assertTrue(catalog.exists(1L));
+		assertFalse(catalog.exists(99L));
+		assertNull(catalog.get(99L));
+		assertEquals(List.of(3L, 1L, 2L), ids(catalog.findAll()));
+
+		verify(repository, times(1)).findAll(any(Sort.class));
+	}
+
+	@Test
+	public void findAll_ShouldPageAndSortInMemory() {
+		Page<CategoryDTO> page = catalog.findAll(PageRequest.of(0, 2, Direction.DESC, "id"));
+
+		assertEquals(List.of(3L, 2L), ids(page.getContent()));
+		assertEquals(3, page.getTotalElements());
+		assertEquals(2, page.getTotalPages());
+		assertEquals(List.of(2L), ids(catalog.findAll(PageRequest.of(1, 2, Direction.ASC, "name")).getContent()));
+		assertTrue(catalog.findAll(PageRequest.of(5, 2)).getContent().isEmpty());
+	}
+
+	@Test
+	public void findAll_ShouldThrowBadRequestException_whenOrderByIsUnknown() {
+		assertThrows(BadRequestException.class, () -> catalog.findAll(PageRequest.of(0, 2, Direction.ASC, "price")));
+	}
+
+	@Test
+	public void findAll_ShouldSortNamesInDatabaseOrder_notInStringOrder() {
+		when(repository.findAll(any(Sort.class))).thenReturn(List.of(						// collation sem diferença de caixa
+				new Category(3L, "computadores"),
+				new Category(1L, "Eletrônicos"),
+				new Category(2L, "livros"),
+				new Category(4L, "Livros")));
+
+		assertEquals(List.of(3L, 1L, 2L, 4L), ids(catalog.findAll(PageRequest.of(0, 4, Direction.ASC, "name")).getContent()));
+		assertEquals(List.of(4L, 2L, 1L, 3L), ids(catalog.findAll(PageRequest.of(0, 4, Sort.by(Sort.Order.desc("name"),
+				Sort.Order.desc("id")))).getContent()));
+	}
+
+	@Test
+	public void canSort_ShouldAcceptOnlyIdAndName() {
+		assertTrue(catalog.canSort(Sort.by("name", "id")));
+		assertTrue(catalog.canSort(Sort.unsorted()));
+		assertFalse(catalog.canSort(Sort.by("createdAt")));
+	}
+
+	@Test
+	public void onCategoryChanged_ShouldPublishNewSnapshot_andKeepOldOneIntact() {
+		catalog.init();
+		List<CategoryDTO> before = catalog.findAll();
+		long version = catalog.version();
+		when(repository.findAll(any(Sort.class))).thenReturn(List.of(
+				new Category(3L, "Computadores"),
+				new Category(2L, "Livros")));
+
+		catalog.onCategoryChanged(new CategoryChangedEvent(1L, true));
+
+		assertEquals(version + 1, catalog.version());
+		assertFalse(catalog.exists(1L));
+		assertEquals(List.of(3L, 1L, 2L), ids(before));										// quem já leu continua com o snapshot anterior
+		assertThrows(UnsupportedOperationException.class, () -> catalog.findAll().clear());
+		assertSame(catalog.findAll(), catalog.findAll());
+	}
+
+	private static List<Long> ids(List<CategoryDTO> categories) {
+		return categories.stream().map(CategoryDTO::getId).collect(Collectors.toList());
+	}
+}
@@ -0,0 +1,98 @@
+package com.devsuperior.dscatalog.tests.components;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.devsuperior.dscatalog.components.CategoryProductIndex;
+import com.devsuperior.dscatalog.components.IntBitmap;
+import com.devsuperior.dscatalog.entities.Category;
+import com.devsuperior.dscatalog.entities.Product;
+import com.devsuperior.dscatalog.repository.ProductRepository;
+import com.devsuperior.dscatalog.services.events.ProductChangedEvent;
+import com.devsuperior.dscatalog.services.events.ProductSnapshot;
+import com.devsuperior.dscatalog.services.events.ProductsImportedEvent;
+
+@ExtendWith(SpringExtension.class)
+public class CategoryProductIndexTests {
+
+	@InjectMocks
+	private CategoryProductIndex categoryIndex;
+
+	@Mock
+	private ProductRepository productRepository;
+
+	@BeforeEach
+	void setup() {
+		when(productRepository.findAllCategoryProductIds()).thenReturn(List.of(
+				new Object[] { 1L, 1L },
+				new Object[] { 2L, 4L },
+				new Object[] { 3L, 4L },
+				new Object[] { 3L, 6L }));
+		categoryIndex.rebuild();
+	}
+
+	@Test
+	public void productsOf_ShouldReturnIdsOfCategory() {
+		assertTrue(categoryIndex.isReady());
+		assertArrayEquals(new int[] { 4, 6 }, categoryIndex.productsOf(3L).toArray());
+		assertTrue(categoryIndex.productsOf(99L).isEmpty());
+	}
+
+	@Test
+	public void productsOf_ShouldIntersectOrUniteCategories() {
+		assertArrayEquals(new int[] { 4 }, categoryIndex.productsOf(List.of(2L, 3L), true).toArray());
+		assertArrayEquals(new int[] { 4, 6 }, categoryIndex.productsOf(List.of(2L, 3L), false).toArray());
+		assertTrue(categoryIndex.productsOf(List.of(1L, 99L), true).isEmpty());
+		assertArrayEquals(new int[] { 1 }, categoryIndex.productsOf(List.of(1L, 99L), false).toArray());
+	}
+
+	@Test
+	public void onProductChanged_ShouldMoveProduct_whenCategoriesChange() {
+		Product product = new Product(4L, "PC Gamer", null, 1200.0, null, null);
+		product.getCategories().add(new Category(1L, null));
+		product.getCategories().add(new Category(5L, null));
+
+		categoryIndex.onProductChanged(ProductChangedEvent.saved(product));
+
+		assertArrayEquals(new int[] { 1, 4 }, categoryIndex.productsOf(1L).toArray());
+		assertTrue(categoryIndex.productsOf(2L).isEmpty());
+		assertArrayEquals(new int[] { 6 }, categoryIndex.productsOf(3L).toArray());
+		assertArrayEquals(new int[] { 4 }, categoryIndex.productsOf(5L).toArray());
+	}
+
+	@Test
+	public void onProductChanged_ShouldNotChangePublishedBitmap_whenProductIsDeleted() {
+		IntBitmap before = categoryIndex.productsOf(3L);
+
+		categoryIndex.onProductChanged(ProductChangedEvent.deleted(6L));
+
+		assertArrayEquals(new int[] { 4, 6 }, before.toArray());						// copy-on-write: quem já leu não vê a mudança
+		assertArrayEquals(new int[] { 4 }, categoryIndex.productsOf(3L).toArray());
+	}
+
+	@Test
+	public void onProductsImported_ShouldAddWholeChunk_withoutChangingPublishedBitmaps() {
+		IntBitmap before = categoryIndex.productsOf(3L);
+
+		categoryIndex.onProductsImported(new ProductsImportedEvent(List.of(
+				new ProductSnapshot(7L, "Mouse", 50.0, null, Set.of(3L)),
+				new ProductSnapshot(8L, "Teclado", 90.0, null, Set.of(3L, 5L)),
+				new ProductSnapshot(9L, "Cabo", 10.0, null, Set.of()))));
+
+		assertArrayEquals(new int[] { 4, 6 }, before.toArray());
+		assertArrayEquals(new int[] { 4, 6, 7, 8 }, categoryIndex.productsOf(3L).toArray());
+		assertArrayEquals(new int[] { 8 }, categoryIndex.productsOf(5L).toArray());
+		assertArrayEquals(new int[] { 1 }, categoryIndex.productsOf(1L).toArray());
+	}
+}
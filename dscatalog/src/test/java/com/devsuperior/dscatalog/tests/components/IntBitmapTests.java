@@ -0,0 +1,63 @@
+package com.devsuperior.dscatalog.tests.components;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+import com.devsuperior.dscatalog.components.IntBitmap;
+
+public class IntBitmapTests {
+
+	@Test
+	public void addRemoveContains_ShouldBehaveAsSet() {
+		IntBitmap bitmap = IntBitmap.of(5, 70000, 1);
+
+		assertFalse(bitmap.add(5));
+		assertTrue(bitmap.contains(70000));
+		assertArrayEquals(new int[] { 1, 5, 70000 }, bitmap.toArray());
+
+		assertTrue(bitmap.remove(70000));
+		assertFalse(bitmap.remove(70000));
+		assertEquals(2, bitmap.cardinality());
+	}
+
+	@Test
+	public void copy_ShouldNotShareContainers() {
+		IntBitmap bitmap = IntBitmap.of(1, 2);
+		IntBitmap copy = bitmap.copy();
+
+		copy.add(3);
+
+		assertFalse(bitmap.contains(3));
+		assertEquals(3, copy.cardinality());
+	}
+
+	@Test
+	public void andOr_ShouldMatchTreeSet_whenContainersSwitchBetweenArrayAndBitmap() {
+		Random random = new Random(42);
+		IntBitmap a = new IntBitmap(), b = new IntBitmap();
+		TreeSet<Integer> setA = new TreeSet<>(), setB = new TreeSet<>();
+		for (int i = 0; i < 20000; i++) {													// passa do limite de 4096 por container
+			int x = random.nextInt(200000), y = random.nextInt(200000);
+			a.add(x);
+			setA.add(x);
+			b.add(y);
+			setB.add(y);
+		}
+
+		TreeSet<Integer> and = new TreeSet<>(setA);
+		and.retainAll(setB);
+		TreeSet<Integer> or = new TreeSet<>(setA);
+		or.addAll(setB);
+
+		assertArrayEquals(and.stream().mapToInt(Integer::intValue).toArray(), IntBitmap.and(a, b).toArray());
+		assertArrayEquals(or.stream().mapToInt(Integer::intValue).toArray(), IntBitmap.or(a, b).toArray());
+		assertEquals(and.size(), IntBitmap.andCardinality(a, b));
+	}
+}
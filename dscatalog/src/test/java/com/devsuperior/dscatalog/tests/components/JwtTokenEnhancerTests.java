@@ -0,0 +1,71 @@
+package com.devsuperior.dscatalog.tests.components;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.oauth2.common.DefaultOAuth2AccessToken;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.OAuth2Request;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.devsuperior.dscatalog.components.JwtTokenEnhancer;
+import com.devsuperior.dscatalog.entities.User;
+import com.devsuperior.dscatalog.repository.UserRepository;
+
+@ExtendWith(SpringExtension.class)
+public class JwtTokenEnhancerTests {
+
+	@InjectMocks
+	private JwtTokenEnhancer tokenEnhancer;
+
+	@Mock
+	private UserRepository userRepository;
+
+	private OAuth2Request request;
+	private User user;
+
+	@BeforeEach
+	void setup() {
+		request = new OAuth2Request(Map.of(), "dscatalog", List.of(), true, Set.of("read", "write"), Set.of(), null,
+				Set.of(), Map.of());
+		user = new User(2L, "Maria", "Green", "maria@gmail.com", "N/A");
+	}
+
+	@Test
+	public void enhance_ShouldUseLoadedPrincipal_whenPasswordGrant() {
+		OAuth2Authentication authentication = new OAuth2Authentication(request,
+				new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));			// como sai do DaoAuthenticationProvider
+
+		OAuth2AccessToken token = tokenEnhancer.enhance(new DefaultOAuth2AccessToken("token"), authentication);
+
+		assertEquals("Maria", token.getAdditionalInformation().get("userFirstName"));
+		assertEquals(2L, token.getAdditionalInformation().get("userId"));
+		verify(userRepository, times(0)).findByEmail(any());
+	}
+
+	@Test
+	public void enhance_ShouldLookUpUser_whenPrincipalIsOnlyTheName() {
+		when(userRepository.findByEmail("maria@gmail.com")).thenReturn(user);
+		OAuth2Authentication authentication = new OAuth2Authentication(request,
+				new UsernamePasswordAuthenticationToken("maria@gmail.com", null, user.getAuthorities()));
+
+		OAuth2AccessToken token = tokenEnhancer.enhance(new DefaultOAuth2AccessToken("token"), authentication);
+
+		assertEquals(2L, token.getAdditionalInformation().get("userId"));
+		verify(userRepository, times(1)).findByEmail("maria@gmail.com");
+	}
+}
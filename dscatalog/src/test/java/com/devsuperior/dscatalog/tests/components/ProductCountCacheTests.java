@@ -0,0 +1,45 @@
+package com.devsuperior.dscatalog.tests.components;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.devsuperior.dscatalog.components.ProductCountCache;
+import com.devsuperior.dscatalog.services.CategoryFilter;
+import com.devsuperior.dscatalog.services.ProductRange;
+import com.devsuperior.dscatalog.services.events.ProductsRepricedEvent;
+
+public class ProductCountCacheTests {
+
+	private ProductCountCache countCache;
+
+	@BeforeEach
+	void setup() {
+		countCache = new ProductCountCache();
+		ReflectionTestUtils.setField(countCache, "ttlSeconds", 30L);
+		ReflectionTestUtils.setField(countCache, "maxSize", 100L);
+		countCache.init();
+	}
+
+	@Test
+	public void put_ShouldCache_whenNoWriteHappenedAfterTheRead() {
+		long version = countCache.version();
+		countCache.put(CategoryFilter.of(1L), "Phone", ProductRange.none(), 3L, version);
+
+		assertEquals(3L, countCache.get(CategoryFilter.of(1L), " phone ", ProductRange.none()));
+	}
+
+	@Test
+	public void put_ShouldNotCache_whenAWriteHappenedAfterTheRead() {
+		long version = countCache.version();
+		countCache.onProductsRepriced(new ProductsRepricedEvent(Map.of(1L, 10.0)));		// commit durante o COUNT
+		countCache.put(CategoryFilter.of(1L), "", ProductRange.none(), 3L, version);
+
+		assertNull(countCache.get(CategoryFilter.of(1L), "", ProductRange.none()));
+	}
+}
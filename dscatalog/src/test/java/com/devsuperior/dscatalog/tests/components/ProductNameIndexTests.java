@@ -0,0 +1,86 @@
+package com.devsuperior.dscatalog.tests.components;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.devsuperior.dscatalog.components.IntBitmap;
+import com.devsuperior.dscatalog.components.ProductNameIndex;
+import com.devsuperior.dscatalog.entities.Product;
+import com.devsuperior.dscatalog.repository.ProductRepository;
+import com.devsuperior.dscatalog.services.events.ProductChangedEvent;
+
+@ExtendWith(SpringExtension.class)
+public class ProductNameIndexTests {
+
+	@InjectMocks
+	private ProductNameIndex nameIndex;
+
+	@Mock
+	private ProductRepository productRepository;
+
+	@BeforeEach
+	void setup() {
+		when(productRepository.findAllIdsAndNames()).thenReturn(List.of(
+				new Object[] { 1L, "The Lord of the Rings" },
+				new Object[] { 4L, "PC Gamer" },
+				new Object[] { 6L, "PC Gamer Ex" },
+				new Object[] { 2L, "Smart TV" }));
+		nameIndex.rebuild();
+	}
+
+	@Test
+	public void canSearch_ShouldReturnFalse_whenTermIsShorterThanGram() {
+		assertFalse(nameIndex.canSearch(""));
+		assertFalse(nameIndex.canSearch("pc"));
+		assertTrue(nameIndex.canSearch("pc g"));
+	}
+
+	@Test
+	public void canSearch_ShouldReturnFalse_whenTermHasLikeWildcards() {
+		assertFalse(nameIndex.canSearch("pc%gamer"));
+		assertFalse(nameIndex.canSearch("pc_gamer"));
+	}
+
+	@Test
+	public void search_ShouldReturnSortedIds_whenNameExistsIgnoringCase() {
+		IntBitmap result = nameIndex.search("pc gAMer");
+
+		assertArrayEquals(new int[] { 4, 6 }, result.toArray());
+	}
+
+	@Test
+	public void search_ShouldReturnEmpty_whenGramsMatchButSubstringDoesNot() {
+		nameIndex.onProductChanged(ProductChangedEvent.saved(new Product(31L, "Tata Motors", null, 10.0, null, null)));
+
+		IntBitmap result = nameIndex.search("tatat");							// "tat" e "ata" existem, a substring não
+
+		assertTrue(result.isEmpty());
+	}
+
+	@Test
+	public void search_ShouldReturnEmpty_whenNameDoesNotExist() {
+		assertTrue(nameIndex.search("Camera").isEmpty());
+	}
+
+	@Test
+	public void onProductChanged_ShouldUpdateIndex_whenProductIsSavedOrDeleted() {
+		Product product = new Product(30L, "Gamer Chair", null, 500.0, null, null);
+
+		nameIndex.onProductChanged(ProductChangedEvent.saved(product));
+		assertArrayEquals(new int[] { 4, 6, 30 }, nameIndex.search("gamer").toArray());
+
+		nameIndex.onProductChanged(ProductChangedEvent.deleted(4L));
+		assertArrayEquals(new int[] { 6, 30 }, nameIndex.search("gamer").toArray());
+	}
+}
@@ -0,0 +1,155 @@
+package com.devsuperior.dscatalog.tests.components;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.devsuperior.dscatalog.components.ProductPageCache;
+import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.services.CategoryFilter;
+import com.devsuperior.dscatalog.services.ProductRange;
+import com.devsuperior.dscatalog.services.events.CategoryChangedEvent;
+import com.devsuperior.dscatalog.services.events.ProductChangedEvent;
+import com.devsuperior.dscatalog.services.events.ProductSnapshot;
+import com.devsuperior.dscatalog.services.events.ProductsRepricedEvent;
+import com.devsuperior.dscatalog.tests.factory.ProductFactory;
+
+public class ProductPageCacheTests {
+
+	private ProductPageCache pageCache;
+	private PageRequest pageRequest;
+	private Page<ProductDTO> phones;												// produto 1, categoria 1
+	private Page<ProductDTO> empty;
+
+	@BeforeEach
+	void setup() {
+		pageCache = new ProductPageCache();
+		ReflectionTestUtils.setField(pageCache, "ttlSeconds", 60L);
+		ReflectionTestUtils.setField(pageCache, "maxSize", 100L);
+		pageCache.init();
+		pageRequest = PageRequest.of(0, 10);
+		phones = new PageImpl<>(List.of(ProductFactory.createProductDTO()));
+		empty = new PageImpl<>(List.of());
+
+		pageCache.put(CategoryFilter.of(1L), "phone", ProductRange.none(), pageRequest, phones, pageCache.version());
+		pageCache.put(CategoryFilter.of(2L), "", ProductRange.none(), pageRequest, empty, pageCache.version());
+		pageCache.put(CategoryFilter.of(0L), "tv", ProductRange.none(), pageRequest, empty, pageCache.version());
+	}
+
+	@Test
+	public void get_ShouldNormalizeName_whenNameDiffersOnlyInCaseOrSpaces() {
+		assertEquals(phones, pageCache.get(CategoryFilter.of(1L), " Phone ", ProductRange.none(), pageRequest));
+	}
+
+	@Test
+	public void put_ShouldNotCache_whenAWriteHappenedAfterTheRead() {
+		long version = pageCache.version();
+		pageCache.onProductChanged(ProductChangedEvent.deleted(snapshot(9L, "Radio", 3L)));
+
+		pageCache.put(CategoryFilter.of(3L), "", ProductRange.none(), pageRequest, empty, version);
+
+		assertNull(pageCache.get(CategoryFilter.of(3L), "", ProductRange.none(), pageRequest));
+	}
+
+	@Test
+	public void onProductsRepriced_ShouldEvictPagesShowingOrSortingByPrice_andKeepTheOthers() {
+		PageRequest byPrice = PageRequest.of(0, 10, Sort.by("price"));
+		pageCache.put(CategoryFilter.of(2L), "", ProductRange.none(), byPrice, empty, pageCache.version());
+		
+		pageCache.onProductsRepriced(new ProductsRepricedEvent(Map.of(1L, 720.0)));
+		
+		assertNull(pageCache.get(CategoryFilter.of(1L), "phone", ProductRange.none(), pageRequest));	// mostra o produto 1
+		assertNull(pageCache.get(CategoryFilter.of(2L), "", ProductRange.none(), byPrice));			// a ordem pode mudar
+		assertNotNull(pageCache.get(CategoryFilter.of(2L), "", ProductRange.none(), pageRequest));
+		assertNotNull(pageCache.get(CategoryFilter.of(0L), "tv", ProductRange.none(), pageRequest));
+	}
+
+	@Test
+	public void onProductChanged_ShouldKeepUnrelatedPages_whenProductDoesNotMatchTheirFilter() {
+		pageCache.onProductChanged(ProductChangedEvent.deleted(snapshot(9L, "Radio", 3L)));
+
+		assertNotNull(pageCache.get(CategoryFilter.of(1L), "phone", ProductRange.none(), pageRequest));
+		assertNotNull(pageCache.get(CategoryFilter.of(2L), "", ProductRange.none(), pageRequest));
+		assertNotNull(pageCache.get(CategoryFilter.of(0L), "tv", ProductRange.none(), pageRequest));
+	}
+
+	@Test
+	public void onProductChanged_ShouldEvictPagesMatchingBeforeOrAfter_whenProductMovesBetweenCategories() {
+		ProductSnapshot before = snapshot(1L, "Phone", 1L);
+		ProductSnapshot after = snapshot(1L, "Smart TV", 2L);
+		pageCache.onProductChanged(new ProductChangedEvent(1L, before, after));
+
+		assertNull(pageCache.get(CategoryFilter.of(1L), "phone", ProductRange.none(), pageRequest));	// perdeu o produto
+		assertNull(pageCache.get(CategoryFilter.of(2L), "", ProductRange.none(), pageRequest));			// ganhou o produto
+		assertNull(pageCache.get(CategoryFilter.of(0L), "tv", ProductRange.none(), pageRequest));		// o nome novo casa
+	}
+
+	@Test
+	public void onProductChanged_ShouldRespectPriceRange_whenPageIsFilteredByPrice() {
+		ProductRange cheap = ProductRange.of(null, 100.0, null, null);
+		pageCache.put(CategoryFilter.of(0L), "", cheap, pageRequest, empty, pageCache.version());
+
+		pageCache.onProductChanged(new ProductChangedEvent(9L, null, new ProductSnapshot(9L, "Radio", 500.0, Instant.now(), Set.of(2L))));
+		assertNotNull(pageCache.get(CategoryFilter.of(0L), "", cheap, pageRequest));
+
+		pageCache.onProductChanged(new ProductChangedEvent(9L, null, new ProductSnapshot(9L, "Radio", 50.0, Instant.now(), Set.of(2L))));
+		assertNull(pageCache.get(CategoryFilter.of(0L), "", cheap, pageRequest));
+	}
+
+	@Test
+	public void onProductChanged_ShouldKeepPages_whenProductHasNoCategory() {
+		pageCache.put(CategoryFilter.of(0L), "", ProductRange.none(), pageRequest, empty, pageCache.version());
+
+		pageCache.onProductChanged(new ProductChangedEvent(9L, null, new ProductSnapshot(9L, "Radio", 50.0, Instant.now(), Set.of())));
+
+		assertNotNull(pageCache.get(CategoryFilter.of(0L), "", ProductRange.none(), pageRequest));		// não entra em listagem nenhuma
+	}
+
+	@Test
+	public void onProductChanged_ShouldEvictEverything_whenDeletedProductIsUnknown() {
+		pageCache.onProductChanged(ProductChangedEvent.deleted(9L));
+
+		assertNull(pageCache.get(CategoryFilter.of(2L), "", ProductRange.none(), pageRequest));
+		assertNull(pageCache.get(CategoryFilter.of(0L), "tv", ProductRange.none(), pageRequest));
+	}
+
+	@Test
+	public void onProductChanged_ShouldApplyLikeWildcards_whenNameFilterHasThem() {
+		pageCache.put(CategoryFilter.of(0L), "smart%tv", ProductRange.none(), pageRequest, empty, pageCache.version());
+		pageCache.put(CategoryFilter.of(0L), "4_ tv", ProductRange.none(), pageRequest, empty, pageCache.version());
+		pageCache.put(CategoryFilter.of(0L), "100\\%", ProductRange.none(), pageRequest, empty, pageCache.version());
+		pageCache.put(CategoryFilter.of(0L), "8_ tv", ProductRange.none(), pageRequest, empty, pageCache.version());
+
+		pageCache.onProductChanged(new ProductChangedEvent(9L, null, snapshot(9L, "Smart 4K TV 100%", 3L)));
+
+		assertNull(pageCache.get(CategoryFilter.of(0L), "smart%tv", ProductRange.none(), pageRequest));		// % = qualquer sequência
+		assertNull(pageCache.get(CategoryFilter.of(0L), "4_ tv", ProductRange.none(), pageRequest));			// _ = um caractere
+		assertNull(pageCache.get(CategoryFilter.of(0L), "100\\%", ProductRange.none(), pageRequest));			// \% = o próprio %
+		assertNotNull(pageCache.get(CategoryFilter.of(0L), "8_ tv", ProductRange.none(), pageRequest));
+	}
+
+	@Test
+	public void onCategoryChanged_ShouldEvictPagesShowingOrFilteringTheCategory() {
+		pageCache.onCategoryChanged(new CategoryChangedEvent(1L, false));
+
+		assertNull(pageCache.get(CategoryFilter.of(1L), "phone", ProductRange.none(), pageRequest));
+		assertNotNull(pageCache.get(CategoryFilter.of(2L), "", ProductRange.none(), pageRequest));
+	}
+
+	private static ProductSnapshot snapshot(Long id, String name, Long categoryId) {
+		return new ProductSnapshot(id, name, 800.0, Instant.parse("2021-10-20T03:00:00Z"), Set.of(categoryId));
+	}
+}
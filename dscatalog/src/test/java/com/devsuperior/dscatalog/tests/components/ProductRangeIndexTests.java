@@ -0,0 +1,112 @@
+package com.devsuperior.dscatalog.tests.components;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.devsuperior.dscatalog.components.ProductRangeIndex;
+import com.devsuperior.dscatalog.entities.Product;
+import com.devsuperior.dscatalog.repository.ProductRepository;
+import com.devsuperior.dscatalog.services.ProductRange;
+import com.devsuperior.dscatalog.services.events.ProductChangedEvent;
+import com.devsuperior.dscatalog.services.events.ProductSnapshot;
+import com.devsuperior.dscatalog.services.events.ProductsImportedEvent;
+import com.devsuperior.dscatalog.services.events.ProductsRepricedEvent;
+
+@ExtendWith(SpringExtension.class)
+public class ProductRangeIndexTests {
+
+	@InjectMocks
+	private ProductRangeIndex rangeIndex;
+
+	@Mock
+	private ProductRepository productRepository;
+
+	private Instant july13 = Instant.parse("2020-07-13T00:00:00Z");
+	private Instant july14 = Instant.parse("2020-07-14T00:00:00Z");
+
+	@BeforeEach
+	void setup() {
+		when(productRepository.findAllPricesAndDates()).thenReturn(List.of(
+				new Object[] { 1L, 90.5, july13 },
+				new Object[] { 2L, 2190.0, july14 },
+				new Object[] { 3L, 100.0, july14 },
+				new Object[] { 4L, null, null }));
+		rangeIndex.rebuild();
+	}
+
+	@Test
+	public void productsIn_ShouldIncludeBounds_whenPriceRangeIsClosed() {
+		assertArrayEquals(new int[] { 1, 3 }, rangeIndex.productsIn(ProductRange.of(90.5, 100.0, null, null)).toArray());
+		assertArrayEquals(new int[] { 2 }, rangeIndex.productsIn(ProductRange.of(100.01, null, null, null)).toArray());
+	}
+
+	@Test
+	public void productsIn_ShouldIntersectPriceAndDate() {
+		ProductRange range = ProductRange.of(null, 1000.0, july14, null);
+
+		assertArrayEquals(new int[] { 3 }, rangeIndex.productsIn(range).toArray());
+	}
+
+	@Test
+	public void productsIn_ShouldCompareDatesBelowTheMillisecond() {
+		Instant stored = Instant.parse("2020-07-13T20:50:07.12345Z");
+		rangeIndex.onProductChanged(ProductChangedEvent.saved(new Product(5L, "Radio", null, 10.0, null, stored)));
+		
+		assertArrayEquals(new int[] { 2, 3 },												// 1 µs depois: só os de 14/07
+				rangeIndex.productsIn(ProductRange.of(null, null, Instant.parse("2020-07-13T20:50:07.123451Z"), null)).toArray());
+		assertArrayEquals(new int[] { 5 }, rangeIndex.productsIn(ProductRange.of(null, null, stored, stored)).toArray());
+		assertArrayEquals(new int[] { 1 },
+				rangeIndex.productsIn(ProductRange.of(null, null, null, Instant.parse("2020-07-13T20:50:07.123449Z"))).toArray());
+	}
+	
+	@Test
+	public void productsIn_ShouldReturnNull_whenRangeHasMoreProductsThanTheLimit() {
+		assertNull(rangeIndex.productsIn(ProductRange.of(null, 100.0, null, null), 1));
+		assertArrayEquals(new int[] { 1, 3 }, rangeIndex.productsIn(ProductRange.of(null, 100.0, null, null), 2).toArray());
+		assertArrayEquals(new int[] { 3 }, rangeIndex.productsIn(ProductRange.of(null, 1000.0, july14, null), 2).toArray());
+	}
+	
+	@Test
+	public void onProductChanged_ShouldMoveProductInsideTheArrays() {
+		rangeIndex.onProductChanged(ProductChangedEvent.saved(new Product(2L, "Smart TV", null, 95.0, null, july14)));
+		assertArrayEquals(new int[] { 1, 2, 3 }, rangeIndex.productsIn(ProductRange.of(null, 100.0, null, null)).toArray());
+
+		rangeIndex.onProductChanged(ProductChangedEvent.deleted(1L));
+		assertArrayEquals(new int[] { 2, 3 }, rangeIndex.productsIn(ProductRange.of(null, 100.0, null, null)).toArray());
+		assertTrue(rangeIndex.productsIn(ProductRange.of(1000.0, null, null, null)).isEmpty());
+	}
+
+	@Test
+	public void onProductsRepriced_ShouldReplaceEveryPriceAtOnce() {
+		rangeIndex.onProductsRepriced(new ProductsRepricedEvent(Map.of(1L, 1500.0, 2L, 1971.0, 4L, 50.0)));
+
+		assertArrayEquals(new int[] { 3, 4 }, rangeIndex.productsIn(ProductRange.of(null, 100.0, null, null)).toArray());
+		assertArrayEquals(new int[] { 1, 2 }, rangeIndex.productsIn(ProductRange.of(1000.0, 2000.0, null, null)).toArray());
+		assertArrayEquals(new int[] { 3 }, rangeIndex.productsIn(ProductRange.of(null, 1000.0, july14, null)).toArray());	// datas intactas
+	}
+
+	@Test
+	public void onProductsImported_ShouldMergeWholeChunkIntoBothColumns() {
+		rangeIndex.onProductsImported(new ProductsImportedEvent(List.of(
+				new ProductSnapshot(5L, "Mouse", 95.0, july13, Set.of()),
+				new ProductSnapshot(6L, "Teclado", 3000.0, null, Set.of()))));
+
+		assertArrayEquals(new int[] { 1, 3, 5 }, rangeIndex.productsIn(ProductRange.of(null, 100.0, null, null)).toArray());
+		assertArrayEquals(new int[] { 6 }, rangeIndex.productsIn(ProductRange.of(2500.0, null, null, null)).toArray());
+		assertArrayEquals(new int[] { 1, 5 }, rangeIndex.productsIn(ProductRange.of(null, null, null, july13)).toArray());
+	}
+}
@@ -0,0 +1,95 @@
+package com.devsuperior.dscatalog.tests.components;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.devsuperior.dscatalog.components.BoundedPasswordEncoder;
+import com.devsuperior.dscatalog.components.RehashingAuthenticationProvider;
+import com.devsuperior.dscatalog.components.VerifiedCredentialCache;
+import com.devsuperior.dscatalog.entities.User;
+import com.devsuperior.dscatalog.services.UserService;
+
+@ExtendWith(SpringExtension.class)
+public class RehashingAuthenticationProviderTests {
+
+	@InjectMocks
+	private RehashingAuthenticationProvider authenticationProvider;
+
+	@Mock
+	private UserService userService;
+
+	@Mock
+	private BoundedPasswordEncoder passwordEncoder;
+
+	@Mock
+	private VerifiedCredentialCache credentialCache;
+
+	private User user;
+
+	@BeforeEach
+	void setup() {
+		authenticationProvider.init();
+		user = new User(2L, "Maria", "Green", "maria@gmail.com", "$2a$10$oldHash");
+		when(userService.loadUserByUsername("maria@gmail.com")).thenReturn(user);
+		when(passwordEncoder.matches("123456", "$2a$10$oldHash")).thenReturn(true);
+		doAnswer(invocation -> {
+			invocation.<Consumer<String>>getArgument(1).accept("$2a$12$newHash");			// o pool roda na hora
+			return true;
+		}).when(passwordEncoder).encodeLater(any(), any());
+	}
+
+	@Test
+	public void authenticate_ShouldRehashInBackground_whenStrengthChanged() {
+		when(passwordEncoder.upgradeEncoding("$2a$10$oldHash")).thenReturn(true);
+
+		authenticationProvider.authenticate(new UsernamePasswordAuthenticationToken("maria@gmail.com", "123456"));
+
+		verify(passwordEncoder, times(1)).encodeLater(any(), any());
+		verify(userService, times(1)).updatePasswordHash(2L, "$2a$10$oldHash", "$2a$12$newHash");	// condicional ao hash lido
+	}
+
+	@Test
+	public void authenticate_ShouldNotRehash_whenStrengthIsCurrent() {
+		when(passwordEncoder.upgradeEncoding("$2a$10$oldHash")).thenReturn(false);
+
+		authenticationProvider.authenticate(new UsernamePasswordAuthenticationToken("maria@gmail.com", "123456"));
+
+		verify(passwordEncoder, times(0)).encodeLater(any(), any());
+		verify(userService, times(0)).updatePasswordHash(any(), any(), any());
+	}
+
+	@Test
+	public void authenticate_ShouldSkipBCrypt_whenCredentialWasVerifiedRecently() {
+		when(credentialCache.isVerified(user, "123456")).thenReturn(true);
+
+		authenticationProvider.authenticate(new UsernamePasswordAuthenticationToken("maria@gmail.com", "123456"));
+
+		verify(passwordEncoder, times(0)).matches(any(), any());
+		verify(credentialCache, times(0)).put(any(), any());
+	}
+
+	@Test
+	public void authenticate_ShouldRememberCredential_onlyAfterBCryptAccepts() {
+		authenticationProvider.authenticate(new UsernamePasswordAuthenticationToken("maria@gmail.com", "123456"));
+		assertThrows(BadCredentialsException.class, () ->
+				authenticationProvider.authenticate(new UsernamePasswordAuthenticationToken("maria@gmail.com", "wrong")));
+
+		verify(credentialCache, times(1)).put(user, "123456");
+		verify(credentialCache, times(0)).put(user, "wrong");
+	}
+}
@@ -0,0 +1,58 @@
+package com.devsuperior.dscatalog.tests.components;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.devsuperior.dscatalog.components.VerifiedCredentialCache;
+import com.devsuperior.dscatalog.entities.User;
+import com.devsuperior.dscatalog.services.events.UserChangedEvent;
+
+public class VerifiedCredentialCacheTests {
+
+	private VerifiedCredentialCache credentialCache;
+	private User user;
+
+	@BeforeEach
+	void setup() {
+		credentialCache = new VerifiedCredentialCache();
+		ReflectionTestUtils.setField(credentialCache, "enabled", true);
+		ReflectionTestUtils.setField(credentialCache, "ttlSeconds", 60L);
+		ReflectionTestUtils.setField(credentialCache, "maxSize", 100L);
+		credentialCache.init();
+		user = new User(2L, "Maria", "Green", "maria@gmail.com", "$2a$10$oldHash");
+	}
+
+	@Test
+	public void isVerified_ShouldMatchOnlySamePasswordAndStoredHash() {
+		credentialCache.put(user, "123456");
+
+		assertTrue(credentialCache.isVerified(user, "123456"));
+		assertFalse(credentialCache.isVerified(user, "1234567"));
+		user.setPassword("$2a$10$newHash");												// senha trocada (ou re-hash)
+		assertFalse(credentialCache.isVerified(user, "123456"));
+	}
+
+	@Test
+	public void onUserChanged_ShouldForgetAllCredentialsOfPreviousEmail() {
+		User alex = new User(1L, "Alex", "Brown", "alex@gmail.com", "$2a$10$alexHash");
+		credentialCache.put(user, "123456");
+		credentialCache.put(alex, "123456");
+
+		credentialCache.onUserChanged(new UserChangedEvent(2L, "maria@gmail.com"));
+
+		assertFalse(credentialCache.isVerified(user, "123456"));
+		assertTrue(credentialCache.isVerified(alex, "123456"));
+	}
+
+	@Test
+	public void isVerified_ShouldAlwaysMiss_whenDisabled() {
+		ReflectionTestUtils.setField(credentialCache, "enabled", false);
+		credentialCache.put(user, "123456");
+
+		assertFalse(credentialCache.isVerified(user, "123456"));
+	}
+}
@@ -0,0 +1,89 @@
+package com.devsuperior.dscatalog.tests.components;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.common.DefaultOAuth2AccessToken;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.OAuth2Request;
+import org.springframework.security.oauth2.provider.token.store.JwtTokenStore;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.devsuperior.dscatalog.components.VerifiedTokenCache;
+
+public class VerifiedTokenCacheTests {
+
+	private VerifiedTokenCache tokenCache;
+	private JwtTokenStore tokenStore;
+	private DefaultOAuth2AccessToken token;
+	private OAuth2Authentication authentication;
+
+	@BeforeEach
+	void setup() {
+		tokenStore = mock(JwtTokenStore.class);
+		tokenCache = new VerifiedTokenCache();
+		ReflectionTestUtils.setField(tokenCache, "tokenStore", tokenStore);
+		ReflectionTestUtils.setField(tokenCache, "maxSize", 100L);
+		tokenCache.init();
+
+		token = new DefaultOAuth2AccessToken("header.payload.signature");
+		token.setExpiration(new Date(System.currentTimeMillis() + 60_000));
+		OAuth2Request request = new OAuth2Request(Map.of(), "dscatalog", List.of(), true, Set.of("read", "write"),
+				Set.of(), null, Set.of(), Map.of());
+		authentication = new OAuth2Authentication(request, new UsernamePasswordAuthenticationToken("maria@gmail.com", "N/A",
+				List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))));
+	}
+
+	@Test
+	public void loadAuthentication_ShouldVerifyOnce_andReturnCopyPerRequest() {
+		when(tokenStore.readAccessToken(token.getValue())).thenReturn(token);
+		when(tokenStore.readAuthentication(token)).thenReturn(authentication);
+
+		OAuth2Authentication first = tokenCache.loadAuthentication(token.getValue());
+		first.setDetails("request 1");														// o OAuth2AuthenticationManager faz isso
+		OAuth2Authentication second = tokenCache.loadAuthentication(token.getValue());
+
+		assertNotSame(first, second);
+		assertNull(second.getDetails());
+		assertEquals("maria@gmail.com", second.getName());
+		assertEquals(authentication.getAuthorities(), second.getAuthorities());
+		verify(tokenStore, times(1)).readAuthentication(any(DefaultOAuth2AccessToken.class));
+	}
+
+	@Test
+	public void loadAuthentication_ShouldNotCacheFailure_whenTokenIsInvalid() {
+		when(tokenStore.readAccessToken(token.getValue())).thenThrow(new InvalidTokenException("Cannot convert access token to JSON"));
+
+		assertThrows(InvalidTokenException.class, () -> tokenCache.loadAuthentication(token.getValue()));
+		assertThrows(InvalidTokenException.class, () -> tokenCache.loadAuthentication(token.getValue()));
+
+		verify(tokenStore, times(2)).readAccessToken(token.getValue());
+	}
+
+	@Test
+	public void loadAuthentication_ShouldRejectAndNotCache_whenTokenIsExpired() {
+		token.setExpiration(new Date(System.currentTimeMillis() - 1_000));
+		when(tokenStore.readAccessToken(token.getValue())).thenReturn(token);
+		when(tokenStore.readAuthentication(token)).thenReturn(authentication);
+
+		assertThrows(InvalidTokenException.class, () -> tokenCache.loadAuthentication(token.getValue()));
+		verify(tokenStore, times(0)).readAuthentication(any(DefaultOAuth2AccessToken.class));
+	}
+}
@@ -1,8 +1,11 @@
 package com.devsuperior.dscatalog.tests.factory;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 
 import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.dto.ProductListRow;
 import com.devsuperior.dscatalog.entities.Category;
 import com.devsuperior.dscatalog.entities.Product;
 
@@ -14,6 +17,19 @@ public class ProductFactory {
 		return product;
 	}
 	
+	// linhas da projeção da listagem: uma por produto x categoria
+	public static List<ProductListRow> createProductListRows(Product... products) {
+		List<ProductListRow> rows = new ArrayList<>();
+		for (Product product : products) {
+			for (Category category : product.getCategories()) {
+				rows.add(new ProductListRow(product.getId(), product.getName(), product.getPrice(), product.getImgUrl(), 
+						product.getDate(), product.getVersion(), product.getCreatedAt(), product.getUpdatedAt(), 
+						category.getId(), category.getName(), category.getCreatedAt(), category.getUpdatedAt()));
+			}
+		}
+		return rows;
+	}
+	
 	public static ProductDTO createProductDTO() {
 		Product product = createProduct();
 		return new ProductDTO(product, product.getCategories());
@@ -15,6 +15,8 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.services.CategoryFilter;
+import com.devsuperior.dscatalog.services.ProductRange;
 import com.devsuperior.dscatalog.services.ProductService;
 import com.devsuperior.dscatalog.services.exceptions.ResourceNotFoundException;
 
@@ -57,7 +59,7 @@ public class ProductServiceIT {									// teste de integração
 	public void findAllPagedShouldReturnNothing_whenNameDoesNotExist() {
 		String name = "Camera";
 		
-		Page<ProductDTO> result = productService.findAllPaged(0L, name, pageRequest);
+		Page<ProductDTO> result = productService.findAllPaged(CategoryFilter.of(0L), name, ProductRange.none(), pageRequest);
 		
 		assertTrue(result.isEmpty());
 	}	
@@ -66,7 +68,7 @@ public class ProductServiceIT {									// teste de integração
 	public void findAllPagedShouldReturnProducts_whenNameIsEmpty() {
 		String name = "";
 		
-		Page<ProductDTO> result = productService.findAllPaged(0L, name, pageRequest);
+		Page<ProductDTO> result = productService.findAllPaged(CategoryFilter.of(0L), name, ProductRange.none(), pageRequest);
 		
 		assertFalse(result.isEmpty());
 		assertEquals(countTotalProducts, result.getTotalElements());
@@ -76,7 +78,7 @@ public class ProductServiceIT {									// teste de integração
 	public void findAllPagedShouldReturnProducts_whenNameExistsIgnoringCase() {
 		String name = "pc gAMer";
 		
-		Page<ProductDTO> result = productService.findAllPaged(0L, name, pageRequest);
+		Page<ProductDTO> result = productService.findAllPaged(CategoryFilter.of(0L), name, ProductRange.none(), pageRequest);
 		
 		assertFalse(result.isEmpty());
 		assertEquals(countPCGamerProducts, result.getTotalElements());
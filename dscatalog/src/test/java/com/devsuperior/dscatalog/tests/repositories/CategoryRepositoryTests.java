@@ -0,0 +1,45 @@
+package com.devsuperior.dscatalog.tests.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Sort.Direction;
+
+import com.devsuperior.dscatalog.entities.Category;
+import com.devsuperior.dscatalog.repository.CategoryRepository;
+import com.devsuperior.dscatalog.repository.KeysetCursor;
+
+@DataJpaTest
+public class CategoryRepositoryTests {
+
+	@Autowired
+	private CategoryRepository categoryRepository;
+
+	@Test
+	public void findAllAfter_ShouldVisitEveryCategoryOnce_whenSomeNamesAreNull() {
+		categoryRepository.save(new Category(null, null));
+		categoryRepository.save(new Category(null, null));
+		long total = categoryRepository.count();
+
+		for (Direction direction : Direction.values()) {
+			List<Long> visited = new ArrayList<>();
+			KeysetCursor position = KeysetCursor.first("name", direction);
+			List<Category> page = categoryRepository.findAllAfter(position, 1);
+			while (!page.isEmpty()) {
+				Category last = page.get(0);
+				visited.add(last.getId());
+				position = KeysetCursor.decode(position.after(last.getId(), last.getName()).encode(), "name", direction);
+				page = categoryRepository.findAllAfter(position, 1);
+			}
+
+			assertEquals(total, visited.size());
+			assertEquals(total, visited.stream().distinct().collect(Collectors.toList()).size());
+		}
+	}
+}
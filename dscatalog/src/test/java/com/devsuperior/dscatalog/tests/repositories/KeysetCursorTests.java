@@ -0,0 +1,68 @@
+package com.devsuperior.dscatalog.tests.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort.Direction;
+
+import com.devsuperior.dscatalog.repository.KeysetCursor;
+import com.devsuperior.dscatalog.services.exceptions.BadRequestException;
+
+public class KeysetCursorTests {
+
+	@Test
+	public void decode_ShouldReturnFirstPage_whenTokenIsEmpty() {
+		KeysetCursor cursor = KeysetCursor.decode("", "name", Direction.ASC);
+
+		assertTrue(cursor.isFirst());
+	}
+
+	@Test
+	public void decode_ShouldRestorePosition_whenTokenWasEncoded() {
+		String token = KeysetCursor.first("name", Direction.DESC).next("PC | Gamer", 7L).encode();
+
+		KeysetCursor cursor = KeysetCursor.decode(token, "name", Direction.DESC);
+
+		assertFalse(cursor.isFirst());
+		assertEquals(token, cursor.encode());
+	}
+
+	@Test
+	public void decode_ShouldThrowBadRequestException_whenOrderByDoesNotMatch() {
+		String token = KeysetCursor.first("name", Direction.ASC).next("PC Gamer", 7L).encode();
+
+		assertThrows(BadRequestException.class, () -> KeysetCursor.decode(token, "id", Direction.ASC));
+		assertThrows(BadRequestException.class, () -> KeysetCursor.decode(token, "name", Direction.DESC));
+	}
+
+	@Test
+	public void decode_ShouldThrowBadRequestException_whenTokenIsInvalid() {
+		assertThrows(BadRequestException.class, () -> KeysetCursor.decode("not a cursor", "name", Direction.ASC));
+	}
+
+	@Test
+	public void first_ShouldThrowBadRequestException_whenOrderByIsNotSortable() {
+		assertThrows(BadRequestException.class, () -> KeysetCursor.first("description", Direction.ASC));
+	}
+
+	@Test
+	public void decode_ShouldKeepNullAndEmptyKeysApart() {
+		KeysetCursor first = KeysetCursor.first("name", Direction.ASC);
+		String nullKey = first.next(null, 7L).encode();
+		String emptyKey = first.next("", 7L).encode();
+
+		assertFalse(nullKey.equals(emptyKey));
+		assertEquals(nullKey, KeysetCursor.decode(nullKey, "name", Direction.ASC).encode());
+		assertEquals(emptyKey, KeysetCursor.decode(emptyKey, "name", Direction.ASC).encode());
+	}
+
+	@Test
+	public void after_ShouldLeaveNameOutOfTheToken_whenOrderIsById() {
+		KeysetCursor first = KeysetCursor.first("id", Direction.ASC);
+
+		assertEquals(first.next(null, 7L).encode(), first.after(7L, "PC Gamer").encode());
+	}
+}
@@ -7,9 +7,15 @@ import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -18,10 +24,14 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort.Direction;
 
+import com.devsuperior.dscatalog.dto.ProductListRow;
 import com.devsuperior.dscatalog.entities.Category;
 import com.devsuperior.dscatalog.entities.Product;
+import com.devsuperior.dscatalog.repository.KeysetCursor;
 import com.devsuperior.dscatalog.repository.ProductRepository;
+import com.devsuperior.dscatalog.services.ProductRange;
 import com.devsuperior.dscatalog.tests.factory.ProductFactory;
 
 @DataJpaTest							// teste de repository precisa somente dessa annotation
@@ -111,6 +121,129 @@ public class ProductRepositoryTests {
 		assertEquals(countPCGamerProducts, result.getTotalElements());
 	}
 	
+	@Test
+	public void findProductIds_ShouldReturnIdsOnlySelectedFromInformedCategories() {
+		String name = "";
+		
+		Page<Long> result = productRepository.findProductIds(categories, 1L, name, ProductRange.none(), pageRequest);
+		
+		assertFalse(result.isEmpty());
+		assertEquals(countCategory1And2, result.getTotalElements());
+	}
+	
+	@Test
+	public void findProductIds_ShouldReturnOnlyProductsInAllCategories_whenMinMatchesIsCategoryCount() {
+		List<Category> booksAndComputers = List.of(new Category(1L, "Livros"), new Category(3L, "Computadores"));
+		
+		Page<Long> result = productRepository.findProductIds(booksAndComputers, 2L, "", ProductRange.none(), pageRequest);
+		
+		assertEquals(List.of(2L), result.getContent());							// só o produto 2 está nas duas
+	}
+	
+	@Test
+	public void findProductIds_ShouldSkipProductsWithoutCategory_whenNoCategoryIsInformed() {
+		Product orphan = productRepository.save(new Product(null, "Orphan Phone", null, 10.0, null, null));
+		
+		Page<Long> result = productRepository.findProductIds(null, 1L, "", ProductRange.none(), pageRequest);
+		Page<Long> byName = productRepository.findProductIds(null, 1L, "Orphan", ProductRange.none(), pageRequest);
+		
+		assertEquals(countTotalProducts, result.getTotalElements());				// como o INNER JOIN p.categories original
+		assertFalse(result.getContent().contains(orphan.getId()));
+		assertTrue(byName.isEmpty());
+	}
+	
+	@Test
+	public void findProductIds_ShouldFilterByPriceRange_whenRangeIsInformed() {
+		ProductRange upTo101 = ProductRange.of(null, 101.0, null, null);
+		
+		Page<Long> result = productRepository.findProductIds(null, 1L, "", upTo101, PageRequest.of(0, 10, Direction.ASC, "id"));
+		
+		assertEquals(List.of(1L, 5L), result.getContent());						// 90.5 e 100.99
+	}
+	
+	@Test
+	public void countProductsByCategory_ShouldGroupMatchesByCategory() {
+		Map<Long, Long> counts = new HashMap<>();
+		productRepository.countProductsByCategory("", ProductRange.none()).forEach(row -> counts.put((Long) row[0], (Long) row[1]));
+		
+		assertEquals(Map.of(1L, 1L, 2L, 2L, 3L, 23L), counts);
+	}
+	
+	@Test
+	public void findProductsWithCategoriesByIds_ShouldLoadProductsWithCategories() {
+		List<Product> result = productRepository.findProductsWithCategoriesByIds(List.of(existingId, 2L));
+		
+		assertEquals(2, result.size());
+		result.forEach(product -> assertFalse(product.getCategories().isEmpty()));
+	}
+	
+	@Test
+	public void findProductListRowsByIds_ShouldReturnOneRowPerProductCategory() {
+		List<ProductListRow> result = productRepository.findProductListRowsByIds(List.of(existingId, 2L));
+		
+		assertEquals(3, result.size());												// produto 1: categoria 2 | produto 2: categorias 1 e 3
+		assertEquals(Set.of(1L, 2L, 3L), result.stream().map(ProductListRow::getCategoryId).collect(Collectors.toSet()));
+		result.forEach(row -> assertEquals(0L, row.getVersion()));
+	}
+	
+	@Test
+	public void streamAllAfter_ShouldStreamProductsInIdOrder_fromTheGivenId() {
+		List<Long> ids;
+		try (Stream<Product> stream = productRepository.streamAllAfter(countTotalProducts - 3)) {
+			ids = stream.map(Product::getId).collect(Collectors.toList());
+		}
+		
+		assertEquals(List.of(countTotalProducts - 2, countTotalProducts - 1, countTotalProducts), ids);
+	}
+	
+	@Test
+	public void findCategoryNamesByProductIds_ShouldReturnOneRowPerProductCategory() {
+		List<Object[]> result = productRepository.findCategoryNamesByProductIds(List.of(existingId, 2L));
+		
+		assertEquals(3, result.size());												// produto 1: categoria 2 | produto 2: categorias 1 e 3
+	}
+	
+	@Test
+	public void findProductFields_ShouldSelectOnlyRequestedColumns_whenCategoriesAreNotRequested() {
+		List<Object[]> result = productRepository.findProductFields(List.of(existingId, 2L), List.of("name", "price"), false);
+		
+		assertEquals(2, result.size());												// sem o JOIN: 1 linha por produto
+		result.forEach(row -> assertEquals(3, row.length));							// id, name, price
+	}
+	
+	@Test
+	public void findProductFields_ShouldJoinCategories_whenCategoriesAreRequested() {
+		List<Object[]> result = productRepository.findProductFields(List.of(existingId, 2L), List.of(), true);
+		
+		assertEquals(3, result.size());												// produto 1: categoria 2 | produto 2: categorias 1 e 3
+		result.forEach(row -> assertEquals(3, row.length));							// id, categoria id, categoria nome
+	}
+	
+	@Test
+	public void findProductIdsAfter_ShouldSeekSameOrderAsOffsetPages() {
+		String name = "PC Gamer";
+		PageRequest byName = PageRequest.of(1, 5, Direction.ASC, "name");
+		KeysetCursor first = KeysetCursor.first("name", Direction.ASC);
+		
+		List<Long> firstPage = productRepository.findProductIdsAfter(null, 1L, name, ProductRange.none(), null, first, 5);
+		Product last = productRepository.findById(firstPage.get(4)).get();
+		List<Long> secondPage = productRepository.findProductIdsAfter(null, 1L, name, ProductRange.none(), null, first.next(last.getName(), last.getId()), 5);
+		
+		assertEquals(productRepository.findProductIds(null, 1L, name, ProductRange.none(), byName).getContent(), secondPage);
+	}
+	
+	@Test
+	public void findProductIdsAfter_ShouldApplySameFilterAsFindProductIds_whenIdsCategoriesAndRangeAreInformed() {
+		ProductRange range = ProductRange.of(100.0, null, null, null);
+		List<Long> ids = List.of(1L, 2L, 3L, 4L, 5L, 6L);
+		KeysetCursor first = KeysetCursor.first("id", Direction.ASC);
+		
+		List<Long> result = productRepository.findProductIdsAfter(categories, 1L, "", range, ids, first, 10);
+		
+		assertEquals(List.of(2L, 5L), result);										// categorias 1 ou 2: produtos 1, 2 e 5 | o 1 custa 90.5
+		assertEquals(productRepository.findProductIdsIn(categories, 1L, "", range, ids, PageRequest.of(0, 10, Direction.ASC, "id")).getContent(), result);
+	}
+	
 	@Test
 	public void save_ShouldPersistWithAutoincrement_whenIdIsNull() {
 		Product product = ProductFactory.createProduct();
@@ -125,6 +258,86 @@ public class ProductRepositoryTests {
 		assertSame(result.get(), product);								// se é o mesmo objeto (cache da JPA não precisou ir ao banco de dados)
 	}
 	
+	@Test
+	public void insertBatch_ShouldInsertProductsWithCategoriesAndFillGeneratedIds() {
+		Product first = new Product(null, "Batch Phone", "Good Phone", 800.0, null, null);
+		first.getCategories().add(new Category(1L, null));
+		Product second = new Product(null, "Batch Book", "Good Book", 50.0, null, null);
+		second.getCategories().add(new Category(1L, null));
+		second.getCategories().add(new Category(3L, null));
+		
+		productRepository.insertBatch(List.of(first, second));
+		
+		assertTrue(first.getId() > countTotalProducts);
+		assertEquals(first.getId() + 1, second.getId());
+		List<Product> result = productRepository.findProductsWithCategoriesByIds(List.of(first.getId(), second.getId()));
+		assertEquals(2, result.size());
+		result.forEach(product -> assertEquals(0L, product.getVersion()));
+		assertEquals(3, result.stream().mapToInt(product -> product.getCategories().size()).sum());
+	}
+	
+	@Test
+	public void multiplyPricesByCategory_ShouldUpdateOnlyProductsOfTheCategoryAndBumpVersion() {
+		int updated = productRepository.multiplyPricesByCategory(2L, 0.5, Instant.now());
+		
+		assertEquals(2, updated);																// categoria 2: produtos 1 e 5
+		Product product = productRepository.findById(existingId).get();
+		assertEquals(45.25, product.getPrice());
+		assertEquals(1L, product.getVersion());
+		assertNotNull(product.getUpdatedAt());
+		assertEquals(2190.0, productRepository.findById(2L).get().getPrice());
+	}
+	
+	@Test
+	public void updatePrices_ShouldBatchUpdatesAndReturnExistingIds() {
+		List<Long> updated = productRepository.updatePrices(Map.of(existingId, 80.0, 1000L, 10.0));
+		
+		assertEquals(List.of(existingId), updated);
+		assertEquals(80.0, productRepository.findById(existingId).get().getPrice());
+	}
+	
+	@Test
+	public void save_ShouldIncrementVersionAndSetUpdatedAt_whenProductChanges() {
+		Product product = productRepository.findById(existingId).get();
+		assertEquals(0L, product.getVersion());							// default da coluna para as linhas do data.sql
+		
+		product.setName("The Lord of the Rings - Deluxe");
+		product = productRepository.saveAndFlush(product);
+		
+		assertEquals(1L, product.getVersion());
+		assertNotNull(product.getUpdatedAt());
+	}
+	
+	@Test
+	public void findVersionRowsById_ShouldReturnOneRowPerCategoryWithTheProductVersion() {
+		Product product = productRepository.findProductsWithCategoriesByIds(List.of(existingId)).get(0);
+		
+		List<Object[]> rows = productRepository.findVersionRowsById(existingId);
+		
+		assertEquals(product.getCategories().size(), rows.size());
+		assertEquals(product.getVersion(), rows.get(0)[0]);
+		assertTrue(productRepository.findVersionRowsById(nonExistingId).isEmpty());
+	}
+	
+	@Test
+	public void updatePrices_ShouldUpdateEachPriceAndReturnOnlyExistingIds() {
+		Map<Long, Double> prices = new HashMap<>();
+		prices.put(existingId, 80.0);
+		prices.put(2L, 120.0);
+		prices.put(nonExistingId, 10.0);
+		
+		List<Long> updated = productRepository.updatePrices(prices);
+		
+		assertEquals(List.of(existingId, 2L), updated);
+		Map<Long, Double> stored = new HashMap<>();
+		for (Product product : productRepository.findProductsWithCategoriesByIds(List.of(existingId, 2L))) {
+			stored.put(product.getId(), product.getPrice());
+		}
+		assertEquals(80.0, stored.get(existingId));
+		assertEquals(120.0, stored.get(2L));
+		assertEquals(1L, productRepository.findVersionRowsById(existingId).get(0)[0]);
+	}
+	
 	@Test
 	public void delete_ShouldDeleteObject_whenIdExists() {
 		
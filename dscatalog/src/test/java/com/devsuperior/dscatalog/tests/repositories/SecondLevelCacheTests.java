@@ -0,0 +1,68 @@
+package com.devsuperior.dscatalog.tests.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.devsuperior.dscatalog.entities.Category;
+import com.devsuperior.dscatalog.entities.User;
+import com.devsuperior.dscatalog.repository.UserRepository;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)								// READ_WRITE não serve à mesma sessão o que ela pôs no cache
+public class SecondLevelCacheTests {
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setup() {
+		entityManagerFactory.getCache().evictAll();										// o contexto (e o cache) é compartilhado entre os testes
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@Test
+	public void find_ShouldHitCategoryRegion_whenCategoryWasLoadedBefore() {
+		find(Category.class, 1L);
+		Category category = find(Category.class, 1L);									// outra sessão: não acha no contexto de persistência
+
+		assertEquals("Livros", category.getName());
+		assertEquals(1, statistics.getDomainDataRegionStatistics("category").getMissCount());
+		assertEquals(1, statistics.getDomainDataRegionStatistics("category").getHitCount());
+	}
+
+	@Test
+	public void findByEmail_ShouldHitRolesRegions_whenUserLogsInAgain() {
+		userRepository.findByEmail("maria@gmail.com");									// sem transação cada chamada abre a sua sessão
+		User user = userRepository.findByEmail("maria@gmail.com");
+
+		assertEquals(2, user.getRoles().size());
+		assertEquals(1, statistics.getDomainDataRegionStatistics("userRoles").getHitCount());
+		assertEquals(2, statistics.getDomainDataRegionStatistics("role").getHitCount());
+	}
+
+	private <T> T find(Class<T> type, Long id) {
+		EntityManager entityManager = entityManagerFactory.createEntityManager();
+		try {
+			return entityManager.find(type, id);
+		} finally {
+			entityManager.close();
+		}
+	}
+}
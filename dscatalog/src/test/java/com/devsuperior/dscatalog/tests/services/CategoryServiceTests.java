@@ -6,14 +6,15 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.List;
-import java.util.Optional;
 
 import javax.persistence.EntityNotFoundException;
 
@@ -22,17 +23,22 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort.Direction;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import com.devsuperior.dscatalog.components.CategoryCatalog;
 import com.devsuperior.dscatalog.dto.CategoryDTO;
 import com.devsuperior.dscatalog.entities.Category;
 import com.devsuperior.dscatalog.repository.CategoryRepository;
 import com.devsuperior.dscatalog.services.CategoryService;
+import com.devsuperior.dscatalog.services.events.CategoryChangedEvent;
+import com.devsuperior.dscatalog.services.exceptions.BadRequestException;
 import com.devsuperior.dscatalog.services.exceptions.DatabaseException;
 import com.devsuperior.dscatalog.services.exceptions.ResourceNotFoundException;
 import com.devsuperior.dscatalog.tests.factory.CategoryFactory;
@@ -45,11 +51,17 @@ public class CategoryServiceTests {
 
 	@Mock
 	private CategoryRepository categoryRepository;
+	
+	@Mock
+	private ApplicationEventPublisher eventPublisher;
+	
+	@Mock
+	private CategoryCatalog catalog;
 
 	private long existingId;
 	private long nonExistingId;
 	private CategoryDTO categoryDTO;
-	private PageImpl<Category> page;
+	private PageImpl<CategoryDTO> page;
 	private Category category;
 	private long dependentId;
 
@@ -63,9 +75,9 @@ public class CategoryServiceTests {
 	
 	@Test
 	public void findAllPaged_ShouldReturnReturnPage_whenPage0Size10() {
-		when(categoryRepository.findAllPaged(any())).thenReturn(page);
-		
 		PageRequest pageRequest = PageRequest.of(0, 10);
+		when(catalog.canSort(pageRequest.getSort())).thenReturn(true);
+		when(catalog.findAll(pageRequest)).thenReturn(page);
 		
 		Page<CategoryDTO> result = categoryService.findAllPaged(pageRequest);
 		
@@ -74,12 +86,30 @@ public class CategoryServiceTests {
 		assertEquals(0, result.getNumber()); 											// a página é realmente a 0?
 		assertEquals(1, result.getSize());												// o tamanho da página é 1?
 		assertEquals(1, result.getTotalElements());
-		verify(categoryRepository, times(1)).findAllPaged(any());
+		verify(categoryRepository, never()).findAllPaged(any());						// vem do snapshot em memória
+	}
+	
+	@Test
+	public void findAllPaged_ShouldPageInTheDatabase_whenOrderByIsNotIdOrName() {
+		PageRequest pageRequest = PageRequest.of(0, 10, Direction.DESC, "createdAt");
+		when(catalog.canSort(pageRequest.getSort())).thenReturn(false);
+		when(categoryRepository.findAllPaged(pageRequest)).thenReturn(new PageImpl<>(List.of(category), pageRequest, 1));
+		
+		Page<CategoryDTO> result = categoryService.findAllPaged(pageRequest);
+		
+		assertEquals(category.getId(), result.getContent().get(0).getId());
+		verify(catalog, never()).findAll(any(PageRequest.class));
+	}
+	
+	@Test
+	public void findAllKeyset_ShouldThrowBadRequestException_whenSizeIsNotPositive() {
+		assertThrows(BadRequestException.class, () -> categoryService.findAllKeyset("", 0, "name", Direction.ASC));
+		verify(categoryRepository, never()).findAllAfter(any(), anyInt());
 	}
 	
 	@Test
 	public void findById_ShouldReturnCategoryDTO_whenIdExists() {
-		when(categoryRepository.findById(existingId)).thenReturn(Optional.of(category));
+		when(catalog.get(existingId)).thenReturn(new CategoryDTO(category));
 
 		CategoryDTO result = categoryService.findById(existingId);
 
@@ -87,17 +117,17 @@ public class CategoryServiceTests {
 		assertEquals(CategoryDTO.class, result.getClass());
 		assertEquals(category.getId(), result.getId());
 		assertEquals(category.getName(), result.getName());
-		verify(categoryRepository, times(1)).findById(any());
+		verify(categoryRepository, never()).findById(any());
 	}
 	
 	@Test
 	public void findById_ShouldThrowResourceNotFoundException_whenIdDoesNotExist() {
-		when(categoryRepository.findById(nonExistingId)).thenThrow(ResourceNotFoundException.class);
+		when(catalog.get(nonExistingId)).thenReturn(null);
 
 		assertThrows(ResourceNotFoundException.class, () -> {
 			categoryService.findById(nonExistingId);
 		});
-		verify(categoryRepository, times(1)).findById(any());
+		verify(categoryRepository, never()).findById(any());
 	}
 	
 	@Test
@@ -110,6 +140,7 @@ public class CategoryServiceTests {
 		assertEquals(categoryDTO.getClass(), response.getClass());
 		assertEquals(categoryDTO.getName(), response.getName());
 		verify(categoryRepository, times(1)).save(any());
+		verify(eventPublisher, times(1)).publishEvent(any(CategoryChangedEvent.class));		// recarrega o catálogo
 	}
 	
 	@Test
@@ -170,6 +201,6 @@ public class CategoryServiceTests {
 	void startCategory() {
 		category = CategoryFactory.createCategory();
 		categoryDTO = CategoryFactory.createCategoryDTO();
-		page = new PageImpl<>(List.of(category));
+		page = new PageImpl<>(List.of(new CategoryDTO(category)));
 	}	
 }
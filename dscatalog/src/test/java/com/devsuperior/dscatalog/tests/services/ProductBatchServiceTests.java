@@ -0,0 +1,206 @@
+package com.devsuperior.dscatalog.tests.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import javax.validation.Validation;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.devsuperior.dscatalog.components.CategoryCatalog;
+import com.devsuperior.dscatalog.dto.BatchItemResultDTO;
+import com.devsuperior.dscatalog.dto.BatchResultDTO;
+import com.devsuperior.dscatalog.dto.CategoryDTO;
+import com.devsuperior.dscatalog.dto.CsvImportResultDTO;
+import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.entities.Product;
+import com.devsuperior.dscatalog.repository.ProductRepository;
+import com.devsuperior.dscatalog.services.ProductBatchService;
+import com.devsuperior.dscatalog.services.events.ProductsImportedEvent;
+import com.devsuperior.dscatalog.tests.factory.ProductFactory;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@ExtendWith(SpringExtension.class)
+public class ProductBatchServiceTests {
+
+	@InjectMocks
+	private ProductBatchService service;
+	
+	@Mock
+	private ProductRepository repository;
+	
+	@Mock
+	private CategoryCatalog catalog;
+	
+	@Mock
+	private TransactionTemplate transactionTemplate;
+	
+	@Mock
+	private ApplicationEventPublisher eventPublisher;
+	
+	private ObjectMapper mapper;
+	private AtomicLong nextId;
+	private ProductDTO validDTO;
+	
+	@BeforeEach
+	void setup() throws Exception {
+		mapper = new ObjectMapper().findAndRegisterModules();
+		nextId = new AtomicLong(100L);
+		validDTO = ProductFactory.createProductDTO(null);										// categoria 1
+		ReflectionTestUtils.setField(service, "chunkSize", 2);
+		ReflectionTestUtils.setField(service, "maxBatchRejects", 10);
+		ReflectionTestUtils.setField(service, "validator", Validation.buildDefaultValidatorFactory().getValidator());
+		
+		when(catalog.findAll()).thenReturn(List.of(new CategoryDTO(1L, "Books"), new CategoryDTO(2L, "Electronics")));
+		doAnswer(invocation -> {
+			invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+			return null;
+		}).when(transactionTemplate).executeWithoutResult(any());
+		doAnswer(invocation -> {
+			List<Product> products = invocation.getArgument(0);
+			products.forEach(product -> product.setId(nextId.getAndIncrement()));				// o id gerado pelo banco
+			return null;
+		}).when(repository).insertBatch(anyList());
+	}
+	
+	@Test
+	public void insertBatch_ShouldInsertInChunksAndReportCountsOnly() throws Exception {
+		BatchResultDTO result = service.insertBatch(read(json(validDTO, validDTO, validDTO)));
+		
+		assertEquals(3, result.getReceived());
+		assertEquals(3, result.getCreated());
+		assertNull(result.getError());
+		assertTrue(result.getRejects().isEmpty());													// criados não entram no relatório
+		assertEquals(103L, nextId.get());
+		verify(repository, times(2)).insertBatch(anyList());										// chunkSize = 2
+		verify(eventPublisher, times(2)).publishEvent(any(ProductsImportedEvent.class));			// 1 por bloco
+	}
+	
+	@Test
+	public void insertBatch_ShouldRejectOnlyInvalidItems_andKeepBodyOrder() throws Exception {
+		ProductDTO negativePrice = ProductFactory.createProductDTONegativePrice(-1D);
+		ProductDTO unknownCategory = ProductFactory.createProductDTO(null);
+		unknownCategory.setCategories(List.of(new CategoryDTO(9L, null)));
+		String wrongType = "{\"name\":\"Phone X\",\"price\":\"abc\"}";
+		String body = "[" + mapper.writeValueAsString(negativePrice) + "," + wrongType + "," 
+				+ mapper.writeValueAsString(unknownCategory) + "," + mapper.writeValueAsString(validDTO) + "]";
+		
+		BatchResultDTO result = service.insertBatch(read(body));
+		
+		assertEquals(4, result.getReceived());
+		assertEquals(1, result.getCreated());
+		assertEquals(3, result.getRejected());
+		assertEquals(List.of(0, 1, 2), indexes(result.getRejects()));
+		assertEquals(BatchItemResultDTO.REJECTED, result.getRejects().get(0).getStatus());
+		assertEquals(List.of("categories: Category not found: 9"), result.getRejects().get(2).getErrors());
+		assertFalse(result.isRejectsTruncated());
+	}
+	
+	@Test
+	public void insertBatch_ShouldCapRejectsButCountEveryItem() throws Exception {
+		ReflectionTestUtils.setField(service, "maxBatchRejects", 2);
+		ProductDTO negativePrice = ProductFactory.createProductDTONegativePrice(-1D);
+		
+		BatchResultDTO result = service.insertBatch(read(json(negativePrice, validDTO, negativePrice, negativePrice, negativePrice)));
+		
+		assertEquals(5, result.getReceived());
+		assertEquals(1, result.getCreated());
+		assertEquals(4, result.getRejected());
+		assertEquals(List.of(0, 2), indexes(result.getRejects()));
+		assertTrue(result.isRejectsTruncated());
+	}
+	
+	@Test
+	public void insertBatch_ShouldKeepProcessedItemsAndReportError_whenBodyIsMalformed() throws Exception {
+		String body = json(validDTO, validDTO, validDTO).replaceFirst("\\}\\]$", "");			// corpo cortado no último item
+		
+		BatchResultDTO result = service.insertBatch(read(body));
+		
+		assertEquals(2, result.getCreated());
+		assertNotNull(result.getError());
+	}
+	
+	@Test
+	public void insertBatch_ShouldRejectWholeChunk_whenDatabaseFails() throws Exception {
+		doThrow(DataIntegrityViolationException.class).when(transactionTemplate).executeWithoutResult(any());
+		
+		BatchResultDTO result = service.insertBatch(read(json(validDTO, validDTO)));
+		
+		assertEquals(0, result.getCreated());
+		assertEquals(2, result.getRejected());
+	}
+	
+	@Test
+	public void importCsv_ShouldResolveCategoryNamesAndInsertInChunks() {
+		String csv = "name,description,price,imgUrl,date,categories\n"
+				+ "Phone X,Good phone,800.0,,2021-10-20T03:00:00Z,electronics\n"
+				+ "\"Book, 2nd ed\",\"Good\nbook\",50.5,,,Books; Electronics\n"
+				+ "Phone Y,Good phone,900.0,,,Electronics\n";
+		
+		CsvImportResultDTO result = service.importCsv(new StringReader(csv));
+		
+		assertEquals(3, result.getRows());
+		assertEquals(3, result.getCreated());
+		assertNull(result.getError());
+		verify(catalog, times(1)).findAll();														// só o snapshot, uma vez por arquivo
+		verify(repository, times(2)).insertBatch(anyList());										// chunkSize = 2
+	}
+	
+	@Test
+	public void importCsv_ShouldReportBadRowsOnly_andCapTheReport() {
+		ReflectionTestUtils.setField(service, "maxRejects", 2);
+		String csv = "name,description,price,imgUrl,date,categories\n"
+				+ "Phone X,Good phone,abc,,,Books\n"											// preço inválido
+				+ "Phone Y,Good phone,10.0,,yesterday,Books\n"									// data inválida
+				+ "Phone Z,Good phone,10.0,,,Toys\n"											// categoria desconhecida
+				+ "Phone W,Good phone,10.0,,,Books\n";
+		
+		CsvImportResultDTO result = service.importCsv(new StringReader(csv));
+		
+		assertEquals(4, result.getRows());
+		assertEquals(1, result.getCreated());
+		assertEquals(3, result.getRejected());
+		assertEquals(2, result.getRejects().size());
+		assertTrue(result.isRejectsTruncated());
+		assertEquals(1, result.getRejects().get(0).getIndex());
+	}
+	
+	private String json(ProductDTO... items) throws Exception {
+		return mapper.writeValueAsString(List.of(items));
+	}
+	
+	private MappingIterator<ProductDTO> read(String body) throws Exception {
+		return mapper.readerFor(ProductDTO.class).readValues(body);
+	}
+	
+	private List<Integer> indexes(List<BatchItemResultDTO> items) {
+		return items.stream().map(BatchItemResultDTO::getIndex).collect(Collectors.toList());
+	}
+}
@@ -5,16 +5,24 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.time.Instant;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 
 import javax.persistence.EntityNotFoundException;
 
@@ -23,19 +31,40 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.domain.Slice;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import com.devsuperior.dscatalog.components.CatalogByIdCache;
+import com.devsuperior.dscatalog.components.CategoryCatalog;
+import com.devsuperior.dscatalog.components.CategoryProductIndex;
+import com.devsuperior.dscatalog.components.IntBitmap;
+import com.devsuperior.dscatalog.components.ProductCountCache;
+import com.devsuperior.dscatalog.components.ProductNameIndex;
+import com.devsuperior.dscatalog.components.ProductPageCache;
+import com.devsuperior.dscatalog.components.ProductRangeIndex;
+import com.devsuperior.dscatalog.dto.CategoryDTO;
+import com.devsuperior.dscatalog.dto.FacetedPageDTO;
+import com.devsuperior.dscatalog.dto.PriceUpdateDTO;
+import com.devsuperior.dscatalog.dto.PriceUpdateResultDTO;
 import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.dto.ProductVersionDTO;
 import com.devsuperior.dscatalog.entities.Category;
 import com.devsuperior.dscatalog.entities.Product;
 import com.devsuperior.dscatalog.repository.CategoryRepository;
 import com.devsuperior.dscatalog.repository.ProductRepository;
+import com.devsuperior.dscatalog.services.CategoryFilter;
+import com.devsuperior.dscatalog.services.FieldSet;
+import com.devsuperior.dscatalog.services.ProductRange;
 import com.devsuperior.dscatalog.services.ProductService;
+import com.devsuperior.dscatalog.services.events.ProductsRepricedEvent;
+import com.devsuperior.dscatalog.services.exceptions.BadRequestException;
 import com.devsuperior.dscatalog.services.exceptions.DatabaseException;
 import com.devsuperior.dscatalog.services.exceptions.ResourceNotFoundException;
 import com.devsuperior.dscatalog.tests.factory.ProductFactory;
@@ -52,12 +81,36 @@ public class ProductServiceTests {
 	@Mock
 	private CategoryRepository categoryRepository;
 	
+	@Mock
+	private CategoryCatalog catalog;
+	
+	@Mock
+	private ProductNameIndex nameIndex;
+	
+	@Mock
+	private CategoryProductIndex categoryIndex;
+	
+	@Mock
+	private ProductRangeIndex rangeIndex;
+	
+	@Mock
+	private ProductCountCache countCache;
+	
+	@Mock
+	private ProductPageCache pageCache;
+	
+	@Mock
+	private CatalogByIdCache byIdCache;
+	
+	@Mock
+	private ApplicationEventPublisher eventPublisher;
+	
 	private long existingId;
 	private long nonExistingId;
 	private long dependentId;
-	private Product product, product2;
+	private Product product, product2, product3;
 	private ProductDTO productDTO;
-	private PageImpl<Product> page;
+	private PageImpl<Long> pageIds;
 	private Category category;
 
 	@BeforeEach
@@ -67,29 +120,231 @@ public class ProductServiceTests {
 		dependentId = 4L;
 		category = new Category(1L, "Eletrônicos");
 		this.startProduct();
+		
+		when(countCache.get(any(), anyString(), any())).thenReturn(null);								// Long do mock seria 0: sem total em cache
+		when(byIdCache.product(any(), any())).thenAnswer(invocation -> 					// sempre miss: chama a carga
+			invocation.<Function<Long, ProductDTO>>getArgument(1).apply(invocation.getArgument(0)));
 	}
 	
 	@Test
 	public void findAllPaged_ShouldReturnPage_whenPage0Size10() {
-		when(productRepository.findProductsWithCategories(any(), anyString(), any())).thenReturn(page);
+		when(productRepository.findProductIds(any(), anyLong(), anyString(), any(), any())).thenReturn(pageIds);
+		when(productRepository.findProductListRowsByIds(any())).thenReturn(ProductFactory.createProductListRows(product3, product, product2));
 		
-		Long categoryId = 0L;
+		CategoryFilter categories = CategoryFilter.of(0L);
 		String name = "";
 		PageRequest pageRequest = PageRequest.of(0, 10);
 
-		Page<ProductDTO> result = productService.findAllPaged(categoryId, name, pageRequest);
+		Page<ProductDTO> result = productService.findAllPaged(categories, name, ProductRange.none(), pageRequest);
 		
 		assertNotNull(result);
 		assertFalse(result.isEmpty()); 													// esse resultado tem que ser falso
 		assertEquals(0, result.getNumber()); 												// a página é realmente a 0?
 		assertEquals(3, result.getSize());												// o tamanho da página é 10?
 		assertEquals(3, result.getTotalElements());										// tem 1 produto dentro do Mockito
-		verify(productRepository, times(1)).findProductsWithCategories(null, name, pageRequest);
+		assertEquals(product.getId(), result.getContent().get(0).getId());				// mantém a ordem da 1ª fase
+		assertEquals(product3.getId(), result.getContent().get(2).getId());
+		verify(productRepository, times(1)).findProductIds(null, 1L, name, ProductRange.none(), pageRequest);
+		verify(productRepository, times(1)).findProductListRowsByIds(pageIds.getContent());
+		verify(countCache, times(1)).put(categories, name, ProductRange.none(), 3L, 0L);
+		verify(pageCache, times(1)).put(eq(categories), eq(name), eq(ProductRange.none()), eq(pageRequest), any(), anyLong());
+	}
+	
+	@Test
+	public void findAllPaged_ShouldReturnCachedPage_whenPageIsCached() {
+		CategoryFilter categories = CategoryFilter.of(0L);
+		PageRequest pageRequest = PageRequest.of(0, 10);
+		Page<ProductDTO> cached = new PageImpl<>(List.of(ProductFactory.createProductDTO()));
+		when(pageCache.get(categories, "", ProductRange.none(), pageRequest)).thenReturn(cached);
+		
+		Page<ProductDTO> result = productService.findAllPaged(categories, "", ProductRange.none(), pageRequest);
+		
+		assertEquals(cached, result);
+		verify(productRepository, times(0)).findProductIds(any(), anyLong(), anyString(), any(), any());
+		verify(productRepository, times(0)).findProductListRowsByIds(any());
+	}
+	
+	@Test
+	public void findAllPaged_ShouldBuildOnlyRequestedFields_whenFieldSetIsGiven() {
+		when(productRepository.findProductIds(any(), anyLong(), anyString(), any(), any())).thenReturn(pageIds);
+		when(productRepository.findProductFields(pageIds.getContent(), List.of("name"), true)).thenReturn(List.of(
+				new Object[] { 2L, "Smart TV", 1L, "Livros" },
+				new Object[] { 2L, "Smart TV", 3L, "Computadores" },
+				new Object[] { 1L, "Phone", 2L, "Eletrônicos" },
+				new Object[] { 3L, "Notebook", null, null }));
+		FieldSet fields = FieldSet.of("name,id,categories", ProductService.FIELDS);
+		
+		Page<Map<String, Object>> result = productService.findAllPaged(CategoryFilter.of(0L), "", ProductRange.none(), 
+				PageRequest.of(0, 10), fields);
+		
+		assertEquals(List.of("name", "id", "categories"), List.copyOf(result.getContent().get(0).keySet()));	// ordem pedida
+		assertEquals(1L, result.getContent().get(0).get("id"));										// ordem da 1ª fase
+		assertEquals(2, ((List<?>) result.getContent().get(1).get("categories")).size());
+		assertTrue(((List<?>) result.getContent().get(2).get("categories")).isEmpty());
+		verify(productRepository, times(0)).findProductListRowsByIds(any());
+	}
+	
+	@Test
+	public void findAllPaged_ShouldThrowBadRequestException_whenFieldIsUnknown() {
+		assertThrows(BadRequestException.class, () -> FieldSet.of("id,password", ProductService.FIELDS));
+	}
+	
+	@Test
+	public void findAllPaged_ShouldUseSliceAndCachedTotal_whenCountIsCached() {
+		when(countCache.get(CategoryFilter.of(0L), "", ProductRange.none())).thenReturn(40L);
+		when(productRepository.findProductIdsSlice(any(), anyLong(), anyString(), any(), any())).thenReturn(pageIds);
+		when(productRepository.findProductListRowsByIds(any())).thenReturn(ProductFactory.createProductListRows(product3, product, product2));
+		
+		PageRequest pageRequest = PageRequest.of(0, 10);
+		
+		Page<ProductDTO> result = productService.findAllPaged(CategoryFilter.of(0L), "", ProductRange.none(), pageRequest);
+		
+		assertEquals(40L, result.getTotalElements());
+		assertEquals(3, result.getNumberOfElements());
+		verify(productRepository, times(0)).findProductIds(any(), anyLong(), anyString(), any(), any());					// sem COUNT
+	}
+	
+	@Test
+	public void findAllPaged_ShouldFilterByCategoryIndex_whenIndexIsReady() {
+		when(categoryIndex.isReady()).thenReturn(true);
+		when(categoryIndex.productsOf(List.of(1L), false)).thenReturn(IntBitmap.of(3, 1, 2));
+		when(productRepository.findProductIdsIn(any(), anyLong(), anyString(), any(), any(), any())).thenReturn(pageIds);
+		when(productRepository.findProductListRowsByIds(any())).thenReturn(ProductFactory.createProductListRows(product3, product, product2));
+		
+		PageRequest pageRequest = PageRequest.of(0, 10);
+		
+		Page<ProductDTO> result = productService.findAllPaged(CategoryFilter.of(1L), "", ProductRange.none(), pageRequest);
+		
+		assertEquals(3, result.getNumberOfElements());
+		verify(productRepository, times(1)).findProductIdsIn(null, 1L, "", ProductRange.none(), List.of(1L, 2L, 3L), pageRequest);	// sem JOIN na tb_product_category
+		verify(productRepository, times(0)).findProductIds(any(), anyLong(), anyString(), any(), any());
+		verify(categoryRepository, times(0)).getOne(any());
+	}
+	
+	@Test
+	public void findAllPaged_ShouldReturnEmptyPage_whenCategoryHasNoProducts() {
+		when(categoryIndex.isReady()).thenReturn(true);
+		when(categoryIndex.productsOf(List.of(99L), false)).thenReturn(new IntBitmap());
+		
+		Page<ProductDTO> result = productService.findAllPaged(CategoryFilter.of(99L), "", ProductRange.none(), PageRequest.of(0, 10));
+		
+		assertTrue(result.isEmpty());
+		verify(productRepository, times(0)).findProductIdsIn(any(), anyLong(), anyString(), any(), any(), any());
+	}
+	
+	@Test
+	public void findAllPaged_ShouldIntersectCategoryBitmaps_whenMatchIsAll() {
+		when(categoryIndex.isReady()).thenReturn(true);
+		when(categoryIndex.productsOf(List.of(1L, 3L), true)).thenReturn(IntBitmap.of(2));
+		when(productRepository.findProductIdsIn(any(), anyLong(), anyString(), any(), any(), any())).thenReturn(new PageImpl<>(List.of(2L)));
+		when(productRepository.findProductListRowsByIds(any())).thenReturn(ProductFactory.createProductListRows(product2));
+		
+		PageRequest pageRequest = PageRequest.of(0, 10);
+		CategoryFilter categories = CategoryFilter.of(0L, List.of(3L, 1L, 3L), "all");
+		
+		Page<ProductDTO> result = productService.findAllPaged(categories, "", ProductRange.none(), pageRequest);
+		
+		assertEquals(1, result.getNumberOfElements());
+		verify(productRepository, times(1)).findProductIdsIn(null, 2L, "", ProductRange.none(), List.of(2L), pageRequest);
+	}
+	
+	@Test
+	public void findAllPaged_ShouldUseHavingCount_whenCategoryIndexIsNotReady() {
+		when(productRepository.findProductIds(any(), anyLong(), anyString(), any(), any())).thenReturn(pageIds);
+		when(productRepository.findProductListRowsByIds(any())).thenReturn(ProductFactory.createProductListRows(product3, product, product2));
+		
+		PageRequest pageRequest = PageRequest.of(0, 10);
+		
+		productService.findAllPaged(CategoryFilter.of(0L, List.of(1L, 3L), "all"), "", ProductRange.none(), pageRequest);
+		
+		verify(productRepository, times(1)).findProductIds(any(), eq(2L), eq(""), any(), eq(pageRequest));	// AND pelo HAVING COUNT
+	}
+	
+	@Test
+	public void findAllFaceted_ShouldCountPerCategoryFromIndex_whenIndexIsReady() {
+		when(categoryIndex.isReady()).thenReturn(true);
+		when(categoryIndex.countsWithin(null)).thenReturn(Map.of(1L, 3L));
+		when(catalog.findAll()).thenReturn(List.of(new CategoryDTO(category), new CategoryDTO(2L, "Livros")));
+		when(productRepository.findProductIds(any(), anyLong(), anyString(), any(), any())).thenReturn(pageIds);
+		when(productRepository.findProductListRowsByIds(any())).thenReturn(ProductFactory.createProductListRows(product3, product, product2));
+		
+		FacetedPageDTO<ProductDTO> result = productService.findAllFaceted(CategoryFilter.of(0L), "", ProductRange.none(), PageRequest.of(0, 10));
+		
+		assertEquals(3, result.getNumberOfElements());
+		assertEquals(1, result.getFacets().size());													// categoria sem produtos fica de fora
+		assertEquals(3L, result.getFacets().get(0).getCount());
+		verify(productRepository, times(0)).countProductsByCategory(anyString(), any());
+	}
+	
+	@Test
+	public void findAllPaged_ShouldIntersectRangeAndCategory_whenIndexesAreReady() {
+		ProductRange range = ProductRange.of(100.0, 500.0, null, null);
+		when(categoryIndex.isReady()).thenReturn(true);
+		when(categoryIndex.productsOf(List.of(1L), false)).thenReturn(IntBitmap.of(1, 2, 3));
+		when(rangeIndex.isReady()).thenReturn(true);
+		when(rangeIndex.productsIn(range, 1000)).thenReturn(IntBitmap.of(2, 3, 7));
+		when(productRepository.findProductIdsIn(any(), anyLong(), anyString(), any(), any(), any())).thenReturn(pageIds);
+		when(productRepository.findProductListRowsByIds(any())).thenReturn(ProductFactory.createProductListRows(product3, product, product2));
+		
+		PageRequest pageRequest = PageRequest.of(0, 10);
+		
+		productService.findAllPaged(CategoryFilter.of(1L), "", range, pageRequest);
+		
+		verify(productRepository, times(1)).findProductIdsIn(null, 1L, "", ProductRange.none(), List.of(2L, 3L), pageRequest);
+	}
+	
+	@Test
+	public void findAllPaged_ShouldSendRangeToTheQuery_whenRangeMatchesTooManyProducts() {
+		ProductRange range = ProductRange.of(100.0, 500.0, null, null);
+		when(categoryIndex.isReady()).thenReturn(true);
+		when(categoryIndex.productsOf(List.of(1L), false)).thenReturn(IntBitmap.of(1, 2, 3));
+		when(rangeIndex.isReady()).thenReturn(true);
+		when(rangeIndex.productsIn(range, 1000)).thenReturn(null);									// acima do limite: sem bitmap
+		when(productRepository.findProductIdsIn(any(), anyLong(), anyString(), any(), any(), any())).thenReturn(pageIds);
+		when(productRepository.findProductListRowsByIds(any())).thenReturn(ProductFactory.createProductListRows(product3, product, product2));
+		
+		PageRequest pageRequest = PageRequest.of(0, 10);
+		
+		productService.findAllPaged(CategoryFilter.of(1L), "", range, pageRequest);
+		
+		verify(productRepository, times(1)).findProductIdsIn(null, 1L, "", range, List.of(1L, 2L, 3L), pageRequest);
+	}
+	
+	@Test
+	public void findAllKeyset_ShouldThrowBadRequestException_whenSizeIsNotPositive() {
+		assertThrows(BadRequestException.class, () -> 
+			productService.findAllKeyset(CategoryFilter.of(0L), "", ProductRange.none(), "", 0, "name", Direction.ASC));
+		verify(productRepository, times(0)).findProductIdsAfter(any(), anyLong(), anyString(), any(), any(), any(), anyInt());
+	}
+	
+	@Test
+	public void productRange_ShouldThrowBadRequestException_whenMinIsGreaterThanMax() {
+		assertThrows(BadRequestException.class, () -> ProductRange.of(500.0, 100.0, null, null));
+	}
+	
+	@Test
+	public void categoryFilter_ShouldThrowBadRequestException_whenMatchIsInvalid() {
+		assertThrows(BadRequestException.class, () -> CategoryFilter.of(0L, List.of(1L, 2L), "both"));
+	}
+	
+	@Test
+	public void findAllSliced_ShouldReturnSliceWithoutCounting() {
+		when(productRepository.findProductIdsSlice(any(), anyLong(), anyString(), any(), any())).thenReturn(pageIds);
+		when(productRepository.findProductListRowsByIds(any())).thenReturn(ProductFactory.createProductListRows(product3, product, product2));
+		
+		PageRequest pageRequest = PageRequest.of(0, 10);
+		
+		Slice<ProductDTO> result = productService.findAllSliced(CategoryFilter.of(0L), "", ProductRange.none(), pageRequest);
+		
+		assertEquals(3, result.getNumberOfElements());
+		assertEquals(product.getId(), result.getContent().get(0).getId());
+		verify(productRepository, times(0)).findProductIds(any(), anyLong(), anyString(), any(), any());
+		verify(countCache, times(0)).put(any(), anyString(), any(), anyLong(), anyLong());
 	}
 
 	@Test
 	public void findById_ShouldReturnProductDTO_whenIdExists() {
-		when(productRepository.findById(existingId)).thenReturn(Optional.of(product));
+		when(productRepository.findProductsWithCategoriesByIds(List.of(existingId))).thenReturn(List.of(product));
 
 		ProductDTO result = productService.findById(existingId);
 
@@ -97,23 +352,64 @@ public class ProductServiceTests {
 		assertEquals(ProductDTO.class, result.getClass());
 		assertEquals(product.getId(), result.getId());
 		assertEquals(product.getName(), result.getName());
-		verify(productRepository, times(1)).findById(any());
+		assertEquals(product.getCategories().size(), result.getCategories().size());
+		verify(productRepository, times(1)).findProductsWithCategoriesByIds(List.of(existingId));
+		verify(productRepository, times(0)).findById(any());
 	}
 
 	@Test
 	public void findById_ShouldThrowResourceNotFoundException_whenIdDoesNotExist() {
-		when(productRepository.findById(nonExistingId)).thenThrow(ResourceNotFoundException.class);
+		when(productRepository.findProductsWithCategoriesByIds(List.of(nonExistingId))).thenReturn(List.of());
 
 		assertThrows(ResourceNotFoundException.class, () -> {
 			productService.findById(nonExistingId);
 		});
-		verify(productRepository, times(1)).findById(any());
+		verify(productRepository, times(1)).findProductsWithCategoriesByIds(List.of(nonExistingId));
+	}
+	
+	@Test
+	public void findVersionById_ShouldUseCachedDTOWithoutQuerying_whenProductIsCached() {
+		ProductDTO cached = new ProductDTO(product, product.getCategories());
+		when(byIdCache.peekProduct(existingId)).thenReturn(cached);
+
+		ProductVersionDTO result = productService.findVersionById(existingId);
+
+		assertEquals(cached.getVersion(), result.getVersion());
+		assertEquals(cached.getLastModified(), result.getLastModified());
+		verify(productRepository, times(0)).findVersionRowsById(any());
+		verify(productRepository, times(0)).findProductsWithCategoriesByIds(any());
+	}
+
+	@Test
+	public void findVersionById_ShouldTakeTheLatestProductOrCategoryDate_whenProductIsNotCached() {
+		Instant created = Instant.parse("2020-07-13T20:50:07.12345Z");
+		Instant categoryUpdated = Instant.parse("2021-01-01T00:00:00Z");
+		List<Object[]> rows = List.of(
+				new Object[] { 3L, created, null, created, null },
+				new Object[] { 3L, created, null, created, categoryUpdated });
+		when(productRepository.findVersionRowsById(existingId)).thenReturn(rows);
+
+		ProductVersionDTO result = productService.findVersionById(existingId);
+
+		assertEquals(3L, result.getVersion());
+		assertEquals(categoryUpdated, result.getLastModified());
+		verify(productRepository, times(0)).findProductsWithCategoriesByIds(any());
+	}
+
+	@Test
+	public void findVersionById_ShouldThrowResourceNotFoundException_whenIdDoesNotExist() {
+		when(productRepository.findVersionRowsById(nonExistingId)).thenReturn(List.of());
+
+		assertThrows(ResourceNotFoundException.class, () -> {
+			productService.findVersionById(nonExistingId);
+		});
 	}
 	
 	@Test
 	public void insert_ShouldReturnProductDTO() {
 		when(productRepository.save(any())).thenReturn(product);
-		when(categoryRepository.getOne(any())).thenReturn(category);
+		when(catalog.exists(1L)).thenReturn(true);
+		when(categoryRepository.getOne(1L)).thenReturn(category);
 		
 		ProductDTO response = productService.insert(productDTO);
 		
@@ -121,6 +417,7 @@ public class ProductServiceTests {
 		assertEquals(productDTO.getClass(), response.getClass());
 		assertEquals(productDTO.getPrice(), response.getPrice());
 		verify(productRepository, times(1)).save(any());
+		verify(categoryRepository, times(0)).findAllById(any());										// categoria conhecida pelo snapshot
 	}	
 	
 	@Test
@@ -136,6 +433,60 @@ public class ProductServiceTests {
 		verify(productRepository, times(1)).save(any());
 	}
 	
+	@Test
+	public void update_ShouldNotTouchCategories_whenCategoriesAreUnchanged() {
+		when(productRepository.getOne(existingId)).thenReturn(product);								// categoria 1
+		when(productRepository.save(any())).thenReturn(product);
+		
+		productService.update(existingId, productDTO);												// categoria 1
+		
+		assertEquals(Set.of(category), product.getCategories());
+		verify(categoryRepository, times(0)).findAllById(any());
+	}
+	
+	@Test
+	public void update_ShouldReplaceCategoriesWithoutLookup_whenCategoriesAreInSnapshot() {
+		Category category2 = new Category(2L, "Livros"), category3 = new Category(3L, "Computadores");
+		when(productRepository.getOne(existingId)).thenReturn(product);								// categoria 1
+		when(productRepository.save(any())).thenReturn(product);
+		when(catalog.exists(any())).thenReturn(true);
+		when(categoryRepository.getOne(2L)).thenReturn(category2);
+		when(categoryRepository.getOne(3L)).thenReturn(category3);
+		productDTO.setCategories(List.of(new CategoryDTO(2L, null), new CategoryDTO(3L, null)));
+		
+		productService.update(existingId, productDTO);
+		
+		assertEquals(Set.of(category2, category3), product.getCategories());
+		verify(categoryRepository, times(0)).findAllById(any());
+	}
+	
+	@Test
+	public void update_ShouldLookUpOnlyCategoriesMissingFromSnapshotInOneQuery() {
+		Category category2 = new Category(2L, "Livros"), category3 = new Category(3L, "Computadores");
+		when(productRepository.getOne(existingId)).thenReturn(product);
+		when(productRepository.save(any())).thenReturn(product);
+		when(catalog.exists(2L)).thenReturn(true);													// 3 acabou de ser criada
+		when(categoryRepository.findAllById(List.of(3L))).thenReturn(List.of(category3));
+		when(categoryRepository.getOne(2L)).thenReturn(category2);
+		when(categoryRepository.getOne(3L)).thenReturn(category3);
+		productDTO.setCategories(List.of(new CategoryDTO(2L, null), new CategoryDTO(3L, null)));
+		
+		productService.update(existingId, productDTO);
+		
+		assertEquals(Set.of(category2, category3), product.getCategories());
+		verify(categoryRepository, times(1)).findAllById(List.of(3L));
+	}
+	
+	@Test
+	public void update_ShouldThrowResourceNotFoundException_whenCategoryDoesNotExist() {
+		when(productRepository.getOne(existingId)).thenReturn(product);
+		when(categoryRepository.findAllById(List.of(nonExistingId))).thenReturn(List.of());
+		productDTO.setCategories(List.of(new CategoryDTO(nonExistingId, null)));
+		
+		assertThrows(ResourceNotFoundException.class, () -> productService.update(existingId, productDTO));
+		verify(productRepository, times(0)).save(any());
+	}
+	
 	@Test
 	public void update_ShouldThrowResourceNotFoundException_whenIdDoesNotExist() {
 		doThrow(EntityNotFoundException.class).when(productRepository).getOne(nonExistingId);
@@ -145,6 +496,48 @@ public class ProductServiceTests {
 		verify(productRepository, times(0)).save(product);
 	}
 
+	@Test
+	public void updatePrices_ShouldRunOneSetBasedUpdate_whenCategoryAndFactorAreInformed() {
+		when(catalog.exists(1L)).thenReturn(true);
+		when(productRepository.findPricesByCategory(1L)).thenReturn(List.of(new Object[] { 1L, 720.0 }, new Object[] { 2L, 90.0 }));
+		
+		PriceUpdateResultDTO result = productService.updatePrices(new PriceUpdateDTO(1L, 0.9));
+		
+		assertEquals(2, result.getUpdated());
+		verify(productRepository, times(1)).multiplyPricesByCategory(eq(1L), eq(0.9), any());
+		verify(productRepository, times(0)).save(any());
+		verify(eventPublisher, times(1)).publishEvent(argThat((Object event) -> event instanceof ProductsRepricedEvent
+				&& ((ProductsRepricedEvent) event).getPrices().equals(Map.of(1L, 720.0, 2L, 90.0))));
+	}
+	
+	@Test
+	public void updatePrices_ShouldReportMissingIds_whenPriceListIsInformed() {
+		when(productRepository.updatePrices(any())).thenReturn(List.of(existingId));
+		
+		PriceUpdateResultDTO result = productService.updatePrices(new PriceUpdateDTO(Map.of(existingId, 80.0, nonExistingId, 10.0)));
+		
+		assertEquals(1, result.getUpdated());
+		assertEquals(List.of(nonExistingId), result.getNotFound());
+		verify(eventPublisher, times(1)).publishEvent(any(ProductsRepricedEvent.class));
+	}
+	
+	@Test
+	public void updatePrices_ShouldThrowBadRequestException_whenBothModesAreInformed() {
+		PriceUpdateDTO dto = new PriceUpdateDTO(Map.of(existingId, 80.0));
+		dto.setCategoryId(1L);
+		dto.setFactor(0.9);
+		
+		assertThrows(BadRequestException.class, () -> productService.updatePrices(dto));
+		verify(productRepository, times(0)).updatePrices(any());
+	}
+	
+	@Test
+	public void updatePrices_ShouldThrowResourceNotFoundException_whenCategoryDoesNotExist() {
+		when(catalog.exists(nonExistingId)).thenReturn(false);
+		
+		assertThrows(ResourceNotFoundException.class, () -> productService.updatePrices(new PriceUpdateDTO(nonExistingId, 0.9)));
+	}
+	
 	@Test
 	public void delete_ShouldDoNothing_whenIdExists() {
 		doNothing().when(productRepository).deleteById(existingId);
@@ -181,7 +574,10 @@ public class ProductServiceTests {
 	void startProduct() {
 		product = ProductFactory.createProduct();
 		product2 = ProductFactory.createProduct();
+		product2.setId(2L);
+		product3 = ProductFactory.createProduct();
+		product3.setId(3L);
 		productDTO = ProductFactory.createProductDTO();
-		page = new PageImpl<>(List.of(product, product2, new Product()));
+		pageIds = new PageImpl<>(List.of(product.getId(), product2.getId(), product3.getId()));
 	}
 }
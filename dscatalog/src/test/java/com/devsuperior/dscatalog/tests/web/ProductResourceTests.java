@@ -1,21 +1,38 @@
 package com.devsuperior.dscatalog.tests.web;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -26,18 +43,31 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort.Direction;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.client.HttpClientErrorException.UnprocessableEntity;
 
+import com.devsuperior.dscatalog.dto.FacetedPageDTO;
+import com.devsuperior.dscatalog.dto.BatchResultDTO;
+import com.devsuperior.dscatalog.dto.CsvImportResultDTO;
+import com.devsuperior.dscatalog.dto.PriceUpdateDTO;
+import com.devsuperior.dscatalog.dto.PriceUpdateResultDTO;
 import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.dto.ProductVersionDTO;
+import com.devsuperior.dscatalog.services.CategoryFilter;
+import com.devsuperior.dscatalog.services.ProductBatchService;
+import com.devsuperior.dscatalog.services.ProductRange;
 import com.devsuperior.dscatalog.services.ProductService;
 import com.devsuperior.dscatalog.services.exceptions.DatabaseException;
 import com.devsuperior.dscatalog.services.exceptions.ResourceNotFoundException;
 import com.devsuperior.dscatalog.tests.factory.ProductFactory;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 
@@ -50,6 +80,9 @@ public class ProductResourceTests {
 	
 	@MockBean
 	private ProductService productService; 
+	
+	@MockBean
+	private ProductBatchService batchService;
 
 	@Value("${security.oauth2.client.client-id}")
 	private String clientId;
@@ -99,6 +132,139 @@ public class ProductResourceTests {
 		result.andExpect(jsonPath("$.price").value(existingProductDTO.getPrice()));
 	}
 	
+	@Test
+	public void findById_ShouldReturnNotModifiedWithoutLoadingTheProduct_whenETagMatches() throws Exception {
+		when(productService.findById(existingId)).thenReturn(existingProductDTO);
+		when(productService.findVersionById(existingId)).thenReturn(new ProductVersionDTO(existingProductDTO));
+		
+		String etag = mockMvc.perform(get("/products/{id}", existingId)
+				.accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk())
+				.andExpect(header().exists("ETag"))
+				.andReturn().getResponse().getHeader("ETag");
+		
+		ResultActions result = mockMvc.perform(get("/products/{id}", existingId)
+				.header("If-None-Match", etag)
+				.accept(MediaType.APPLICATION_JSON));
+		
+		result.andExpect(status().isNotModified());
+		result.andExpect(header().string("ETag", etag));
+		verify(productService, times(1)).findById(existingId);						// só o 1º GET montou o DTO
+	}
+	
+	@Test
+	public void findById_ShouldReturnProductWithItsETag_whenETagDoesNotMatch() throws Exception {
+		when(productService.findById(existingId)).thenReturn(existingProductDTO);
+		when(productService.findVersionById(existingId)).thenReturn(new ProductVersionDTO(existingProductDTO));
+		
+		ResultActions result = mockMvc.perform(get("/products/{id}", existingId)
+				.header("If-None-Match", "\"p1.0.0\"")
+				.accept(MediaType.APPLICATION_JSON));
+		
+		result.andExpect(status().isOk());
+		result.andExpect(jsonPath("$.id").value(existingId));
+		result.andExpect(header().stringValues("ETag", "\"p" + existingId + "." + existingProductDTO.getVersion() + "."
+				+ ((existingProductDTO.getLastModified() == null) ? 0 : existingProductDTO.getLastModified().toEpochMilli()) + "\""));
+	}
+	
+	@Test
+	public void findAll_ShouldReturnNotModified_whenPageETagMatches() throws Exception {
+		when(productService.findAllPaged(any(), anyString(), any(), any())).thenReturn(page);
+		
+		String etag = mockMvc.perform(get("/products")
+				.accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader("ETag");
+		
+		ResultActions result = mockMvc.perform(get("/products")
+				.header("If-None-Match", etag)
+				.accept(MediaType.APPLICATION_JSON));
+		
+		result.andExpect(status().isNotModified());
+	}
+	
+	@Test
+	public void export_ShouldStreamOneProductPerLine() throws Exception {
+		doAnswer(invocation -> {
+			Consumer<ProductDTO> consumer = invocation.getArgument(1);
+			consumer.accept(existingProductDTO);
+			consumer.accept(ProductFactory.createProductDTO(2L));
+			return null;
+		}).when(productService).exportAfter(eq(0L), any());
+		String accessToken = obtainAccessToken(operatorUsername, operatorPassword);
+		
+		MvcResult started = mockMvc.perform(get("/products/export")
+				.header("Authorization", "Bearer " + accessToken))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		String body = mockMvc.perform(asyncDispatch(started))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+				.andExpect(header().string("Vary", "Accept-Encoding"))
+				.andExpect(header().doesNotExist("Content-Encoding"))
+				.andReturn().getResponse().getContentAsString();
+		
+		String[] lines = body.split("\n");
+		assertEquals(2, lines.length);
+		assertTrue(body.endsWith("\n"));												// última linha completa
+		assertEquals(2L, mapper.readValue(lines[1], ProductDTO.class).getId());
+	}
+	
+	@Test
+	public void export_ShouldGzipAndResume_whenAcceptEncodingIsGzipAndAfterIdIsGiven() throws Exception {
+		doAnswer(invocation -> {
+			Consumer<ProductDTO> consumer = invocation.getArgument(1);
+			consumer.accept(ProductFactory.createProductDTO(11L));
+			return null;
+		}).when(productService).exportAfter(eq(10L), any());
+		String accessToken = obtainAccessToken(operatorUsername, operatorPassword);
+		
+		MvcResult started = mockMvc.perform(get("/products/export?afterId=10")
+				.header("Authorization", "Bearer " + accessToken)
+				.header("Accept-Encoding", "gzip"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		byte[] body = mockMvc.perform(asyncDispatch(started))
+				.andExpect(header().string("Content-Encoding", "gzip"))
+				.andExpect(header().string("Vary", "Accept-Encoding"))
+				.andReturn().getResponse().getContentAsByteArray();
+		
+		try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+			String line = new String(in.readAllBytes(), StandardCharsets.UTF_8).trim();
+			assertEquals(11L, mapper.readValue(line, ProductDTO.class).getId());
+		}
+	}
+	
+	@Test
+	public void export_ShouldNotGzip_whenGzipIsRefusedWithQZero() throws Exception {
+		doAnswer(invocation -> {
+			Consumer<ProductDTO> consumer = invocation.getArgument(1);
+			consumer.accept(existingProductDTO);
+			return null;
+		}).when(productService).exportAfter(eq(0L), any());
+		String accessToken = obtainAccessToken(operatorUsername, operatorPassword);
+		
+		MvcResult started = mockMvc.perform(get("/products/export")
+				.header("Authorization", "Bearer " + accessToken)
+				.header("Accept-Encoding", "gzip;q=0, identity"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		String body = mockMvc.perform(asyncDispatch(started))
+				.andExpect(header().doesNotExist("Content-Encoding"))
+				.andExpect(header().string("Vary", "Accept-Encoding"))
+				.andReturn().getResponse().getContentAsString();
+		
+		assertEquals(existingId, mapper.readValue(body.trim(), ProductDTO.class).getId());
+	}
+	
+	@Test
+	public void export_ShouldReturnUnauthorized_whenNoTokenIsGiven() throws Exception {
+		ResultActions result = mockMvc.perform(get("/products/export"));
+		
+		result.andExpect(status().isUnauthorized());
+		verify(productService, never()).exportAfter(any(), any());
+	}
+	
 	@Test
 	public void findById_ShouldThrowResourceNotFoundException_whenIdDoesNotExist() throws Exception {
 		when(productService.findById(nonExistingId)).thenThrow(ResourceNotFoundException.class);
@@ -111,7 +277,7 @@ public class ProductResourceTests {
 	
 	@Test
 	public void findAll_ShouldReturnPage() throws Exception {
-		when(productService.findAllPaged(any(), anyString(), any())).thenReturn(page);
+		when(productService.findAllPaged(any(), anyString(), any(), any())).thenReturn(page);
 						
 		ResultActions result = mockMvc.perform(get("/products")
 				.accept(MediaType.APPLICATION_JSON));
@@ -120,6 +286,81 @@ public class ProductResourceTests {
 		result.andExpect(jsonPath("$.content").exists());
 	}
 	
+	@Test
+	public void findAll_ShouldReturnOnlyRequestedFields_whenFieldsIsGiven() throws Exception {
+		Map<String, Object> item = new LinkedHashMap<>();
+		item.put("id", existingId);
+		item.put("name", existingProductDTO.getName());
+		when(productService.findAllPaged(any(), anyString(), any(), any(), any())).thenReturn(new PageImpl<>(List.of(item)));
+		
+		ResultActions result = mockMvc.perform(get("/products?fields=id,name")
+				.accept(MediaType.APPLICATION_JSON));
+		
+		result.andExpect(status().isOk());
+		result.andExpect(jsonPath("$.content[0].name").value(existingProductDTO.getName()));
+		result.andExpect(jsonPath("$.content[0].description").doesNotExist());
+		result.andExpect(jsonPath("$.content[0].categories").doesNotExist());
+	}
+	
+	@Test
+	public void findAll_ShouldReturnBadRequest_whenFieldIsUnknown() throws Exception {
+		ResultActions result = mockMvc.perform(get("/products?fields=id,password")
+				.accept(MediaType.APPLICATION_JSON));
+		
+		result.andExpect(status().isBadRequest());
+	}
+	
+	@Test
+	public void findAll_ShouldReturnPageWithFacets_whenFacetsIsTrue() throws Exception {
+		when(productService.findAllFaceted(any(), anyString(), any(), any())).thenReturn(new FacetedPageDTO<>(page, List.of()));
+		
+		ResultActions result = mockMvc.perform(get("/products?facets=true")
+				.accept(MediaType.APPLICATION_JSON));
+				
+		result.andExpect(status().isOk());
+		result.andExpect(jsonPath("$.content").exists());
+		result.andExpect(jsonPath("$.facets").exists());
+	}
+	
+	@Test
+	public void findAll_ShouldBindFilterAndPage_fromQueryParams() throws Exception {
+		when(productService.findAllSliced(any(), anyString(), any(), any())).thenReturn(page);
+		
+		ResultActions result = mockMvc.perform(get("/products?slice=true&categoryIds=2,1&match=all&name=pc&minPrice=10&page=2&linesPerPage=5&direction=DESC&orderBy=price")
+				.accept(MediaType.APPLICATION_JSON));
+		
+		result.andExpect(status().isOk());
+		verify(productService).findAllSliced(CategoryFilter.of(0L, List.of(2L, 1L), "all"), "pc", ProductRange.of(10.0, null, null, null), 
+				PageRequest.of(2, 5, Direction.DESC, "price"));
+	}
+	
+	@Test
+	public void findAll_ShouldReturnBadRequest_whenVariantsAreCombined() throws Exception {
+		for (String params : List.of("slice=true&facets=true", "cursor=&slice=true", "cursor=&facets=true", 
+				"fields=id&slice=true", "fields=id&facets=true", "fields=id&cursor=")) {
+			ResultActions result = mockMvc.perform(get("/products?" + params)
+					.accept(MediaType.APPLICATION_JSON));
+			
+			result.andExpect(status().isBadRequest());								// nenhuma variante casa: nem 500 de mapping ambíguo, nem parâmetro ignorado
+		}
+	}
+	
+	@Test
+	public void findAll_ShouldReturnBadRequest_whenPriceRangeIsInverted() throws Exception {
+		ResultActions result = mockMvc.perform(get("/products?minPrice=500&maxPrice=100")
+				.accept(MediaType.APPLICATION_JSON));
+				
+		result.andExpect(status().isBadRequest());
+	}
+	
+	@Test
+	public void findAll_ShouldReturnBadRequest_whenMatchIsInvalid() throws Exception {
+		ResultActions result = mockMvc.perform(get("/products?categoryIds=1,2&match=both")
+				.accept(MediaType.APPLICATION_JSON));
+				
+		result.andExpect(status().isBadRequest());
+	}
+	
 	@Test
 	public void insert_ShouldReturnProductDTOCreated_whenValidData() throws Exception {
 		when(productService.insert(any())).thenReturn(newProductDTO);
@@ -154,6 +395,102 @@ public class ProductResourceTests {
 		result.andExpect(status().isUnprocessableEntity());
 	}
 
+	@Test
+	public void insertBatch_ShouldReadEveryItem_whenBodyIsJsonArray() throws Exception {
+		when(batchService.insertBatch(any())).thenAnswer(invocation -> createdAll(invocation.getArgument(0)));
+		
+		String accessToken = obtainAccessToken(operatorUsername, operatorPassword);
+		String jsonBody = mapper.writeValueAsString(List.of(newProductDTO, newProductDTO, newProductDTO));
+		ResultActions result = mockMvc.perform(post("/products/batch")
+				.header("Authorization", "Bearer " + accessToken)
+				.content(jsonBody)
+				.contentType(MediaType.APPLICATION_JSON)
+				.accept(MediaType.APPLICATION_JSON));
+		
+		result.andExpect(status().isOk());
+		result.andExpect(jsonPath("$.received").value(3));
+		result.andExpect(jsonPath("$.created").value(3));
+		result.andExpect(jsonPath("$.rejects").isEmpty());
+	}
+	
+	@Test
+	public void insertBatch_ShouldReadEveryItem_whenBodyIsNdjson() throws Exception {
+		when(batchService.insertBatch(any())).thenAnswer(invocation -> createdAll(invocation.getArgument(0)));
+		
+		String accessToken = obtainAccessToken(operatorUsername, operatorPassword);
+		String jsonBody = mapper.writeValueAsString(newProductDTO) + "\n" + mapper.writeValueAsString(newProductDTO) + "\n";
+		ResultActions result = mockMvc.perform(post("/products/batch")
+				.header("Authorization", "Bearer " + accessToken)
+				.content(jsonBody)
+				.contentType(MediaType.APPLICATION_NDJSON)
+				.accept(MediaType.APPLICATION_JSON));
+		
+		result.andExpect(status().isOk());
+		result.andExpect(jsonPath("$.received").value(2));
+		result.andExpect(jsonPath("$.rejected").value(0));
+	}
+	
+	@Test
+	public void importCsv_ShouldPassBodyToServiceAndReturnReport() throws Exception {
+		when(batchService.importCsv(any())).thenAnswer(invocation -> {
+			BufferedReader reader = new BufferedReader(invocation.getArgument(0));
+			long rows = reader.lines().count() - 1;													// sem o cabeçalho
+			return new CsvImportResultDTO(rows, rows, List.of(), false, 1L, null);
+		});
+		
+		String accessToken = obtainAccessToken(operatorUsername, operatorPassword);
+		String csv = "name,description,price,imgUrl,date,categories\nPhone X,Good phone,800.0,,,Books\n";
+		ResultActions result = mockMvc.perform(post("/products/import")
+				.header("Authorization", "Bearer " + accessToken)
+				.content(csv)
+				.contentType("text/csv; charset=UTF-8")
+				.accept(MediaType.APPLICATION_JSON));
+		
+		result.andExpect(status().isOk());
+		result.andExpect(jsonPath("$.rows").value(1));
+		result.andExpect(jsonPath("$.created").value(1));
+	}
+	
+	@Test
+	public void updatePrices_ShouldReturnResult_whenCategoryAndFactorAreInformed() throws Exception {
+		when(productService.updatePrices(any())).thenReturn(new PriceUpdateResultDTO(2, List.of()));
+		
+		String accessToken = obtainAccessToken(operatorUsername, operatorPassword);
+		String jsonBody = mapper.writeValueAsString(new PriceUpdateDTO(1L, 0.9));
+		ResultActions result = mockMvc.perform(patch("/products/prices")
+				.header("Authorization", "Bearer " + accessToken)
+				.content(jsonBody)
+				.contentType(MediaType.APPLICATION_JSON)
+				.accept(MediaType.APPLICATION_JSON));
+		
+		result.andExpect(status().isOk());
+		result.andExpect(jsonPath("$.updated").value(2));
+	}
+	
+	@Test
+	public void updatePrices_ShouldReturnUnprocessableEntity_whenFactorIsNegative() throws Exception {
+		String accessToken = obtainAccessToken(operatorUsername, operatorPassword);
+		String jsonBody = mapper.writeValueAsString(new PriceUpdateDTO(1L, -0.9));
+		ResultActions result = mockMvc.perform(patch("/products/prices")
+				.header("Authorization", "Bearer " + accessToken)
+				.content(jsonBody)
+				.contentType(MediaType.APPLICATION_JSON)
+				.accept(MediaType.APPLICATION_JSON));
+		
+		result.andExpect(status().isUnprocessableEntity());
+	}
+	
+	@Test
+	public void insertBatch_ShouldReturnUnauthorized_whenNoToken() throws Exception {
+		String jsonBody = mapper.writeValueAsString(List.of(newProductDTO));
+		ResultActions result = mockMvc.perform(post("/products/batch")
+				.content(jsonBody)
+				.contentType(MediaType.APPLICATION_JSON)
+				.accept(MediaType.APPLICATION_JSON));
+		
+		result.andExpect(status().isUnauthorized());
+	}
+
 	@Test
 	public void update_ShouldReturnProductDTO_whenIdExists() throws Exception {
 		when(productService.update(eq(existingId), any())).thenReturn(existingProductDTO);				// eq = permite passar um valor, qndo o outro parametro é any()
@@ -225,6 +562,16 @@ public class ProductResourceTests {
 		result.andExpect(status().isBadRequest());
 	}	
 	
+	// consome o stream como o ProductBatchService: um item por vez, todos criados
+	private BatchResultDTO createdAll(MappingIterator<ProductDTO> items) throws Exception {
+		long received = 0;
+		while (items.hasNextValue()) {
+			items.nextValue();
+			received++;
+		}
+		return new BatchResultDTO(received, received, List.of(), false, 1L, null);
+	}
+	
 	private String obtainAccessToken(String username, String password) throws Exception {
 		 
 	    MultiValueMap<String, String> params = new LinkedMultiValueMap<>();